@@ -0,0 +1,29 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Starts the real application for benchmarks that need the Spring context, on a random port and with
+ * the variables otherwise provided by {@code .env}.
+ */
+final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    /**
+     * @param properties passed as command-line arguments, default properties would lose to
+     *        {@code application.properties}
+     */
+    static ConfigurableApplicationContext start(String... properties) {
+        Stream<String> arguments = Stream.concat(Stream.of("server.port=0", "logging.level.root=WARN",
+                "cashcard.rate-limit.enabled=false"), Arrays.stream(properties));
+        return new SpringApplicationBuilder(CashCardApplication.class)
+                .properties("DB_USER=sa", "DB_PASSWORD=", "CONSOLE_PATH=h2-console")
+                .run(arguments.map(property -> "--" + property).toArray(String[]::new));
+    }
+}
@@ -0,0 +1,113 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * A page of {@code GET /cashcards} over the loopback interface, with and without response compression and
+ * over HTTP/1.1 or HTTP/2 (h2c, enabled for this benchmark only). Besides the latency, which includes decompressing the body, the
+ * {@code wireBytes} counter reports the size of the response body as sent by the server.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CashCardCompressionBenchmark {
+
+    private static final String OWNER = "Sarah1";
+
+    @Param({ "20", "200", "2000" })
+    int pageSize;
+
+    @Param({ "true", "false" })
+    boolean compression;
+
+    @Param({ "HTTP_1_1", "HTTP_2" })
+    HttpClient.Version protocol;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private HttpRequest request;
+
+    /**
+     * Per-thread counters; JMH reports the value left at the end of each iteration.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Response {
+
+        public long wireBytes;
+
+        public long bodyBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.wireBytes = 0;
+            this.bodyBytes = 0;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        this.context = BenchmarkApplication.start("server.compression.enabled=" + this.compression,
+                "server.http2.enabled=" + (this.protocol == HttpClient.Version.HTTP_2));
+        CashCardRepository repository = this.context.getBean(CashCardRepository.class);
+        IntStream.range(0, this.pageSize)
+                .forEach(i -> repository.save(new CashCard(null, BigDecimal.valueOf(10_000 + i, 2), OWNER)));
+
+        int port = ((WebServerApplicationContext) this.context).getWebServer().getPort();
+        this.client = HttpClient.newBuilder().version(this.protocol).build();
+        this.request = HttpRequest.newBuilder(URI.create("http://localhost:" + port
+                        + "/cashcards?size=" + this.pageSize + "&sort=amount"))
+                .header("Authorization", "Basic " + Base64.getEncoder()
+                        .encodeToString((OWNER + ":abc123").getBytes(StandardCharsets.UTF_8)))
+                .header("Accept-Encoding", "gzip")
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public byte[] findAllPage(Response counters) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = this.client.send(this.request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Unexpected status " + response.statusCode());
+        }
+        byte[] body = response.body();
+        counters.wireBytes = body.length;
+        if (response.headers().firstValue("Content-Encoding").filter("gzip"::equals).isPresent()) {
+            try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+                body = in.readAllBytes();
+            }
+        }
+        counters.bodyBytes = body.length;
+        return body;
+    }
+}
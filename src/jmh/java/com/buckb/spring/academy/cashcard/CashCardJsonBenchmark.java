@@ -0,0 +1,78 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Jackson (de)serialization of {@link CashCard}, including its {@code BigDecimal} amount, with the default
+ * reflective bean serializer and with {@link CashCardJsonSerializer}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CashCardJsonBenchmark {
+
+    @Param({ "20", "200" })
+    int pageSize;
+
+    @Param({ "reflective", "specialized" })
+    String serializer;
+
+    private ObjectWriter cardWriter;
+    private ObjectWriter listWriter;
+    private ObjectReader cardReader;
+
+    private CashCard card;
+    private List<CashCard> page;
+    private byte[] cardJson;
+
+    @Setup
+    public void setup() throws Exception {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        if (this.serializer.equals("specialized")) {
+            builder.serializers(new CashCardJsonSerializer());
+        }
+        ObjectMapper objectMapper = builder.build();
+        this.cardWriter = objectMapper.writerFor(CashCard.class);
+        this.listWriter = objectMapper.writerFor(objectMapper.getTypeFactory()
+                .constructCollectionType(List.class, CashCard.class));
+        this.cardReader = objectMapper.readerFor(CashCard.class);
+
+        this.card = new CashCard(99L, new BigDecimal("123.45"), "Sarah1");
+        this.page = LongStream.range(0, this.pageSize)
+                .mapToObj(id -> new CashCard(id, BigDecimal.valueOf(id * 137, 2), "Sarah1"))
+                .toList();
+        this.cardJson = this.cardWriter.writeValueAsBytes(this.card);
+    }
+
+    @Benchmark
+    public byte[] serializeCard() throws Exception {
+        return this.cardWriter.writeValueAsBytes(this.card);
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws Exception {
+        return this.listWriter.writeValueAsBytes(this.page);
+    }
+
+    @Benchmark
+    public CashCard deserializeCard() throws Exception {
+        return this.cardReader.readValue(this.cardJson);
+    }
+}
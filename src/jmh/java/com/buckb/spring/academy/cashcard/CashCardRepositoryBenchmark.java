@@ -0,0 +1,92 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+/**
+ * {@link CashCardRepository} query methods against the embedded H2 database. The card cache is sized to
+ * zero so every call reaches the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CashCardRepositoryBenchmark {
+
+    private static final String OWNER = "Sarah1";
+
+    @Param({ "1000" })
+    int cards;
+
+    private ConfigurableApplicationContext context;
+    private CashCardRepository repository;
+    private List<Long> ids;
+
+    @Setup
+    public void setup() {
+        this.context = BenchmarkApplication.start("cashcard.card-cache.max-size=0");
+        this.repository = this.context.getBean(CashCardRepository.class);
+        this.ids = IntStream.range(0, this.cards)
+                .mapToObj(i -> this.repository.save(new CashCard(null, BigDecimal.valueOf(i, 2), OWNER)).id())
+                .toList();
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.context.close();
+    }
+
+    private Long randomId() {
+        return this.ids.get(ThreadLocalRandom.current().nextInt(this.ids.size()));
+    }
+
+    @Benchmark
+    public Optional<CashCard> findByIdAndOwner() {
+        return this.repository.findByIdAndOwner(randomId(), OWNER);
+    }
+
+    @Benchmark
+    public boolean existsByIdAndOwner() {
+        return this.repository.existsByIdAndOwner(randomId(), OWNER);
+    }
+
+    @Benchmark
+    public Page<CashCard> findByOwnerFirstPage() {
+        return this.repository.findByOwner(OWNER, PageRequest.of(0, 20, Sort.by("amount")));
+    }
+
+    @Benchmark
+    public Page<CashCard> findByOwnerDeepPage() {
+        return this.repository.findByOwner(OWNER, PageRequest.of(this.cards / 20 - 1, 20, Sort.by("amount")));
+    }
+
+    @Benchmark
+    public Slice<CashCard> findWindowByOwner() {
+        return this.repository.findWindowByOwner(OWNER, CashCardFilter.NONE, Sort.Order.asc("amount"), null, 20);
+    }
+
+    @Benchmark
+    public CashCard save() {
+        CashCard current = this.repository.findByIdAndOwner(randomId(), OWNER).orElseThrow();
+        return this.repository.save(new CashCard(current.id(), current.amount().add(BigDecimal.ONE), OWNER,
+                current.version()));
+    }
+}
@@ -0,0 +1,61 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.servlet.Filter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * The complete {@link SecurityConfig} filter chain for an HTTP Basic request to {@code /cashcards},
+ * with and without the verified-credential cache in front of BCrypt.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SecurityFilterChainBenchmark {
+
+    @Param({ "true", "false" })
+    boolean authCache;
+
+    private ConfigurableApplicationContext context;
+    private Filter springSecurityFilterChain;
+    private String authorization;
+
+    @Setup
+    public void setup() {
+        this.context = BenchmarkApplication.start("cashcard.auth-cache.enabled=" + this.authCache);
+        this.springSecurityFilterChain = this.context.getBean("springSecurityFilterChain", Filter.class);
+        this.authorization = "Basic " + Base64.getEncoder()
+                .encodeToString("Sarah1:abc123".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public int authenticatedRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/cashcards/99");
+        request.setServletPath("/cashcards/99");
+        request.addHeader("Authorization", this.authorization);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        this.springSecurityFilterChain.doFilter(request, response, new MockFilterChain());
+        return response.getStatus();
+    }
+}
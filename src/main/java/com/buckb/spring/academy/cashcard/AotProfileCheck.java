@@ -0,0 +1,59 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.springframework.aot.AotDetector;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Stops an AOT launch ({@code -Dspring.aot.enabled=true}) whose active profiles differ from the ones
+ * {@code processAot} generated the bean definitions for. Those definitions are fixed at build time, so
+ * {@code @Profile} and {@code @Conditional} beans of any other profile, such as the durable storage or the
+ * replica pools, would be silently missing.
+ */
+public class AotProfileCheck implements EnvironmentPostProcessor {
+
+    static final String PROCESSED_PROFILES_LOCATION = "META-INF/cashcard-aot.properties";
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if (!AotDetector.useGeneratedArtifacts()) {
+            return;
+        }
+        Set<String> processed = profiles(processedProfiles());
+        Set<String> active = profiles(String.join(",", environment.getActiveProfiles()));
+        if (!active.equals(processed)) {
+            throw new IllegalStateException("The AOT bean definitions were generated for profiles " + processed
+                    + " but the application runs with " + active + ". Start it with -Dspring.profiles.active="
+                    + String.join(",", processed) + ", rebuild with -Paot.profiles=" + String.join(",", active)
+                    + ", or run without -Dspring.aot.enabled.");
+        }
+    }
+
+    private static String processedProfiles() {
+        try {
+            Properties properties = PropertiesLoaderUtils.loadAllProperties(PROCESSED_PROFILES_LOCATION,
+                    AotProfileCheck.class.getClassLoader());
+            return properties.getProperty("profiles", "");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Set<String> profiles(String profiles) {
+        Set<String> set = new TreeSet<>(StringUtils.commaDelimitedListToSet(profiles.replace(" ", "")));
+        set.remove("");
+        if (set.isEmpty()) {
+            set.add("default");
+        }
+        return set;
+    }
+}
@@ -0,0 +1,20 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for the verified-credential cache in front of the password encoder.
+ *
+ * @param enabled whether successful HTTP Basic logins are cached at all
+ * @param maxSize maximum number of users kept in the cache
+ * @param ttl how long a verified credential is trusted before BCrypt runs again
+ */
+@ConfigurationProperties("cashcard.auth-cache")
+public record AuthenticationCacheProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("10000") int maxSize,
+        @DefaultValue("5m") Duration ttl) {
+}
@@ -0,0 +1,156 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.sql.DataSource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Limits how many connections can be checked out of the target pool at the same time.
+ * <p>
+ * With virtual threads there is no worker pool to cap concurrency, so thousands of requests could
+ * otherwise queue inside the connection pool and time out together. Callers over the limit wait on a
+ * fair semaphore instead, and fail fast once {@code acquireTimeout} has passed.
+ */
+public class BulkheadDataSource extends DelegatingDataSource implements AutoCloseable, MeterBinder {
+
+    private final Semaphore permits;
+    private final long acquireTimeoutNanos;
+
+    private volatile Timer acquiredWait;
+    private volatile Timer rejectedWait;
+
+    public BulkheadDataSource(DataSource targetDataSource, int maxConcurrent, Duration acquireTimeout) {
+        super(targetDataSource);
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return releasingOnClose(obtainTargetDataSource().getConnection());
+        } catch (SQLException | RuntimeException e) {
+            this.permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return releasingOnClose(obtainTargetDataSource().getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            this.permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Closes the target pool, which would otherwise be hidden from the container's shutdown.
+     */
+    @Override
+    public void close() throws Exception {
+        if (obtainTargetDataSource() instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    public int availablePermits() {
+        return this.permits.availablePermits();
+    }
+
+    public int queueLength() {
+        return this.permits.getQueueLength();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("cashcard.datasource.bulkhead.available", this, BulkheadDataSource::availablePermits)
+                .register(registry);
+        Gauge.builder("cashcard.datasource.bulkhead.queued", this, BulkheadDataSource::queueLength)
+                .register(registry);
+        this.acquiredWait = waitTimer(registry, "acquired");
+        this.rejectedWait = waitTimer(registry, "rejected");
+    }
+
+    private static Timer waitTimer(MeterRegistry registry, String outcome) {
+        return Timer.builder("cashcard.datasource.bulkhead.wait")
+                .description("Time spent waiting for a database permit before the pool is asked for a connection")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private void acquire() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            boolean acquired = this.permits.tryAcquire(this.acquireTimeoutNanos, TimeUnit.NANOSECONDS);
+            record(acquired ? this.acquiredWait : this.rejectedWait, start);
+            if (!acquired) {
+                throw new SQLTransientConnectionException(
+                        "No database permit available within " + Duration.ofNanos(this.acquireTimeoutNanos));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a database permit", e);
+        }
+    }
+
+    private static void record(Timer timer, long start) {
+        if (timer != null) {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Connection releasingOnClose(Connection target) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(),
+                new Class<?>[] { ConnectionProxy.class },
+                (proxy, method, args) -> invoke(target, released, proxy, method, args));
+    }
+
+    private Object invoke(Connection target, AtomicBoolean released, Object proxy, Method method, Object[] args)
+            throws Throwable {
+        switch (method.getName()) {
+            case "getTargetConnection":
+                return target;
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "close":
+                try {
+                    target.close();
+                } finally {
+                    if (released.compareAndSet(false, true)) {
+                        this.permits.release();
+                    }
+                }
+                return null;
+            default:
+                try {
+                    return method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getTargetException();
+                }
+        }
+    }
+}
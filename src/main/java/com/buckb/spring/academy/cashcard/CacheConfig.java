@@ -0,0 +1,29 @@
+package com.buckb.spring.academy.cashcard;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableCaching
+@EnableConfigurationProperties(CardCacheProperties.class)
+public class CacheConfig {
+
+    @Bean
+    CacheManager cacheManager(CardCacheProperties properties) {
+        CaffeineCacheManager caffeineCacheManager = new CaffeineCacheManager(
+                CashCardRepository.CARDS_CACHE, CashCardRepository.EXISTS_CACHE);
+        caffeineCacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(properties.maxSize())
+                .expireAfterWrite(properties.ttl())
+                .recordStats());
+        // Defer puts and evictions to commit, so a rolled back write never leaves its value behind
+        return new TransactionAwareCacheManagerProxy(caffeineCacheManager);
+    }
+}
@@ -0,0 +1,193 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+/**
+ * Remembers credentials that already passed the delegate provider so repeat HTTP Basic
+ * callers skip the BCrypt verification.
+ * <p>
+ * Only an HMAC of the submitted password is kept, keyed with a secret that lives for
+ * the lifetime of this instance. A hit still reloads the user and is discarded if the
+ * stored password hash or the account status changed since it was cached, so a password
+ * change takes effect on the next request.
+ */
+public class CachingAuthenticationProvider implements AuthenticationProvider, MeterBinder {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final AuthenticationProvider delegate;
+    private final UserDetailsService userDetailsService;
+    private final Duration ttl;
+    private final Clock clock;
+    private final SecretKeySpec key;
+    private final Map<String, CachedCredential> cache;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public CachingAuthenticationProvider(AuthenticationProvider delegate, UserDetailsService userDetailsService,
+            AuthenticationCacheProperties properties) {
+        this(delegate, userDetailsService, properties, Clock.systemUTC());
+    }
+
+    CachingAuthenticationProvider(AuthenticationProvider delegate, UserDetailsService userDetailsService,
+            AuthenticationCacheProperties properties, Clock clock) {
+        this.delegate = delegate;
+        this.userDetailsService = userDetailsService;
+        this.ttl = properties.ttl();
+        this.clock = clock;
+
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        this.key = new SecretKeySpec(secret, HMAC_ALGORITHM);
+
+        int maxSize = properties.maxSize();
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedCredential> eldest) {
+                boolean full = size() > maxSize;
+                if (full) {
+                    evictions.increment();
+                }
+                return full;
+            }
+        });
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        if (!(authentication instanceof UsernamePasswordAuthenticationToken)
+                || authentication.getCredentials() == null) {
+            return this.delegate.authenticate(authentication);
+        }
+
+        String username = authentication.getName();
+        byte[] digest = digest(username, authentication.getCredentials().toString());
+
+        CachedCredential cached = this.cache.get(username);
+        if (cached != null) {
+            Authentication result = authenticateFromCache(authentication, cached, digest);
+            if (result != null) {
+                this.hits.increment();
+                return result;
+            }
+        }
+
+        this.misses.increment();
+        Authentication result = this.delegate.authenticate(authentication);
+        if (result != null && result.getPrincipal() instanceof UserDetails user) {
+            this.cache.put(username, new CachedCredential(digest, user.getPassword(),
+                    this.clock.instant().plus(this.ttl)));
+        }
+        return result;
+    }
+
+    private Authentication authenticateFromCache(Authentication authentication, CachedCredential cached,
+            byte[] digest) {
+        if (!MessageDigest.isEqual(cached.digest(), digest)) {
+            // Wrong password (or a changed one): let the delegate decide, but keep the entry.
+            return null;
+        }
+        if (!this.clock.instant().isBefore(cached.expiresAt())) {
+            evict(authentication.getName());
+            return null;
+        }
+
+        UserDetails user = this.userDetailsService.loadUserByUsername(authentication.getName());
+        if (!cached.encodedPassword().equals(user.getPassword()) || !user.isEnabled()
+                || !user.isAccountNonLocked() || !user.isAccountNonExpired() || !user.isCredentialsNonExpired()) {
+            evict(authentication.getName());
+            return null;
+        }
+
+        UsernamePasswordAuthenticationToken result = UsernamePasswordAuthenticationToken.authenticated(
+                user, authentication.getCredentials(), user.getAuthorities());
+        result.setDetails(authentication.getDetails());
+        return result;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return this.delegate.supports(authentication);
+    }
+
+    /**
+     * Drops the cached credential of the given user, e.g. after an administrative password reset.
+     */
+    public void evict(String username) {
+        if (this.cache.remove(username) != null) {
+            this.evictions.increment();
+        }
+    }
+
+    public long hitCount() {
+        return this.hits.sum();
+    }
+
+    public long missCount() {
+        return this.misses.sum();
+    }
+
+    public long evictionCount() {
+        return this.evictions.sum();
+    }
+
+    public int size() {
+        return this.cache.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cashcard.auth.cache.requests", this, CachingAuthenticationProvider::hitCount)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("cashcard.auth.cache.requests", this, CachingAuthenticationProvider::missCount)
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("cashcard.auth.cache.evictions", this, CachingAuthenticationProvider::evictionCount)
+                .register(registry);
+        Gauge.builder("cashcard.auth.cache.size", this, CachingAuthenticationProvider::size)
+                .register(registry);
+    }
+
+    private byte[] digest(String username, String password) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(this.key);
+            mac.update(username.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return mac.doFinal(password.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+
+    private record CachedCredential(byte[] digest, String encodedPassword, Instant expiresAt) {
+    }
+}
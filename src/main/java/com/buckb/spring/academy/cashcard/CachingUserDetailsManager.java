@@ -0,0 +1,91 @@
+package com.buckb.spring.academy.cashcard;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.provisioning.UserDetailsManager;
+
+/**
+ * Keeps recently loaded users in a bounded in-memory cache so authentication does not hit the user
+ * tables on every request.
+ * <p>
+ * Writes through this manager invalidate the user's entry immediately; changes made elsewhere are picked
+ * up once the entry expires. Unknown usernames are not cached. Callers get a copy of the cached user,
+ * because the authentication manager erases the password of the principal it returns.
+ */
+public class CachingUserDetailsManager implements UserDetailsManager, MeterBinder {
+
+    private final UserDetailsManager delegate;
+    private final LoadingCache<String, UserDetails> cache;
+
+    public CachingUserDetailsManager(UserDetailsManager delegate, UserCacheProperties properties) {
+        this.delegate = delegate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.maxSize())
+                .expireAfterWrite(properties.ttl())
+                .recordStats()
+                .build(delegate::loadUserByUsername);
+    }
+
+    @Override
+    public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        return User.withUserDetails(this.cache.get(username)).build();
+    }
+
+    @Override
+    public void createUser(UserDetails user) {
+        this.delegate.createUser(user);
+        evict(user.getUsername());
+    }
+
+    @Override
+    public void updateUser(UserDetails user) {
+        this.delegate.updateUser(user);
+        evict(user.getUsername());
+    }
+
+    @Override
+    public void deleteUser(String username) {
+        this.delegate.deleteUser(username);
+        evict(username);
+    }
+
+    @Override
+    public void changePassword(String oldPassword, String newPassword) {
+        this.delegate.changePassword(oldPassword, newPassword);
+        Authentication currentUser = SecurityContextHolder.getContext().getAuthentication();
+        if (currentUser != null) {
+            evict(currentUser.getName());
+        }
+    }
+
+    @Override
+    public boolean userExists(String username) {
+        return this.cache.getIfPresent(username) != null || this.delegate.userExists(username);
+    }
+
+    /**
+     * Drops the cached user, e.g. after the user tables were changed without going through this manager.
+     */
+    public void evict(String username) {
+        this.cache.invalidate(username);
+    }
+
+    public void evictAll() {
+        this.cache.invalidateAll();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, this.cache, "users");
+    }
+}
@@ -0,0 +1,18 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for the owner-scoped cache in front of {@link CashCardRepository} single-card lookups.
+ *
+ * @param maxSize maximum number of entries per cache
+ * @param ttl upper bound on how long an entry is served; writes evict their entries immediately
+ */
+@ConfigurationProperties("cashcard.card-cache")
+public record CardCacheProperties(
+        @DefaultValue("10000") long maxSize,
+        @DefaultValue("10m") Duration ttl) {
+}
@@ -2,7 +2,17 @@ package com.buckb.spring.academy.cashcard;
 
 import java.math.BigDecimal;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+
+/**
+ * @param version optimistic-locking version, sent to clients as the {@code ETag} rather than in the body
+ */
+public record CashCard(@Id Long id, BigDecimal amount, String owner, @Version @JsonIgnore Long version) {
 
-public record CashCard(@Id Long id, BigDecimal amount, String owner) {
+    public CashCard(Long id, BigDecimal amount, String owner) {
+        this(id, amount, owner, null);
+    }
 }
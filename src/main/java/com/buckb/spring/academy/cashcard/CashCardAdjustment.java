@@ -0,0 +1,12 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.math.BigDecimal;
+
+/**
+ * Body of {@code POST /cashcards/{id}/adjust}.
+ *
+ * @param delta the amount to add to the balance, negative to withdraw
+ * @param nonNegative reject the adjustment if it would leave the balance below zero
+ */
+public record CashCardAdjustment(BigDecimal delta, boolean nonNegative) {
+}
@@ -9,7 +9,9 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 public class CashCardApplication {
 
 	public static void main(String[] args) {
+		// Optional: containers, the AOT processing and the CDS training run get the variables from the environment
 		Dotenv.configure()
+				.ignoreIfMissing()
 				.systemProperties()
 				.load();
 
@@ -0,0 +1,24 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.math.BigDecimal;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * One entry of a {@code POST /cashcards/batch} request.
+ *
+ * @param op what to do with the card
+ * @param id the card to update or delete, ignored for creates
+ * @param amount the new amount for creates and updates
+ */
+public record CashCardBatchOperation(Type op, Long id, BigDecimal amount) {
+
+    public enum Type {
+        @JsonProperty("create")
+        CREATE,
+        @JsonProperty("update")
+        UPDATE,
+        @JsonProperty("delete")
+        DELETE
+    }
+}
@@ -0,0 +1,11 @@
+package com.buckb.spring.academy.cashcard;
+
+/**
+ * Outcome of one {@link CashCardBatchOperation}, in the same order as the request.
+ *
+ * @param index position of the operation in the request
+ * @param id the affected card, or the generated id for creates
+ * @param status the HTTP status the single-card endpoint would have answered with
+ */
+public record CashCardBatchResult(int index, Long id, int status) {
+}
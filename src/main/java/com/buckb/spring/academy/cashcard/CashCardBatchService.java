@@ -0,0 +1,203 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Applies many card operations with a handful of statements instead of one round trip per card.
+ * <p>
+ * Ownership of every referenced card is resolved with a single set-based query, then the
+ * operations are grouped by type and sent as JDBC batches (creates, then updates, then soft deletes)
+ * inside one transaction, after which the owner's summary is recomputed once. Because the grouping does not
+ * keep the request order, a batch may reference each card at most once (see {@link #hasRepeatedIds}).
+ */
+@Service
+public class CashCardBatchService {
+
+    static final int MAX_OPERATIONS = 10_000;
+
+    private static final int IN_CLAUSE_CHUNK_SIZE = 1_000;
+
+    private static final String INSERT_SQL = "INSERT INTO cash_card (amount, owner) VALUES (:amount, :owner)";
+    private static final String UPDATE_SQL = "UPDATE cash_card SET amount = :amount, version = version + 1"
+            + " WHERE id = :id AND owner = :owner AND deleted_at IS NULL";
+    private static final String DELETE_SQL = "UPDATE cash_card SET deleted_at = CURRENT_TIMESTAMP,"
+            + " version = version + 1 WHERE id = :id AND owner = :owner AND deleted_at IS NULL";
+    private static final String OWNED_IDS_SQL = "SELECT id FROM cash_card"
+            + " WHERE owner = :owner AND id IN (:ids) AND deleted_at IS NULL";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final CacheManager cacheManager;
+    private final CashCardSummaryRepository cashCardSummaryRepository;
+    private final ApplicationEventPublisher events;
+
+    public CashCardBatchService(NamedParameterJdbcTemplate jdbcTemplate, CacheManager cacheManager,
+            CashCardSummaryRepository cashCardSummaryRepository, ApplicationEventPublisher events) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cacheManager = cacheManager;
+        this.cashCardSummaryRepository = cashCardSummaryRepository;
+        this.events = events;
+    }
+
+    /**
+     * Whether several operations reference the same card. Such a batch is rejected as a whole: applied by type,
+     * e.g. {@code [delete X, update X]} would not mean what its order says.
+     */
+    static boolean hasRepeatedIds(List<CashCardBatchOperation> operations) {
+        Set<Long> ids = new HashSet<>();
+        for (CashCardBatchOperation operation : operations) {
+            if (operation != null && operation.op() != CashCardBatchOperation.Type.CREATE && operation.id() != null
+                    && !ids.add(operation.id())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Transactional
+    public List<CashCardBatchResult> apply(List<CashCardBatchOperation> operations, String owner) {
+        CashCardBatchResult[] results = new CashCardBatchResult[operations.size()];
+        Set<Long> ownedIds = findOwnedIds(operations, owner);
+
+        List<Integer> creates = new ArrayList<>();
+        List<Integer> updates = new ArrayList<>();
+        List<Integer> deletes = new ArrayList<>();
+        for (int i = 0; i < operations.size(); i++) {
+            CashCardBatchOperation operation = operations.get(i);
+            if (!isValid(operation)) {
+                results[i] = new CashCardBatchResult(i, operation == null ? null : operation.id(),
+                        HttpStatus.BAD_REQUEST.value());
+            } else if (operation.op() == CashCardBatchOperation.Type.CREATE) {
+                creates.add(i);
+            } else if (!ownedIds.contains(operation.id())) {
+                results[i] = new CashCardBatchResult(i, operation.id(), HttpStatus.NOT_FOUND.value());
+            } else if (operation.op() == CashCardBatchOperation.Type.UPDATE) {
+                updates.add(i);
+            } else {
+                deletes.add(i);
+            }
+        }
+
+        insert(operations, creates, owner, results);
+        write(UPDATE_SQL, operations, updates, owner, results);
+        write(DELETE_SQL, operations, deletes, owner, results);
+        this.cashCardSummaryRepository.rebuild(owner);
+        publishEvents(operations, results, owner);
+
+        // These writes bypass the repository, so drop the cached lookups they affect (including
+        // "not found" entries for ids that were just created).
+        evict(owner, Arrays.stream(results)
+                .filter(result -> HttpStatus.valueOf(result.status()).is2xxSuccessful())
+                .map(CashCardBatchResult::id)
+                .toList());
+        return Arrays.asList(results);
+    }
+
+    private void evict(String owner, Collection<Long> ids) {
+        for (String cacheName : List.of(CashCardRepository.CARDS_CACHE, CashCardRepository.EXISTS_CACHE)) {
+            Cache cache = this.cacheManager.getCache(cacheName);
+            if (cache != null) {
+                ids.forEach(id -> cache.evict(CashCardRepository.cacheKey(owner, id)));
+            }
+        }
+    }
+
+    private void publishEvents(List<CashCardBatchOperation> operations, CashCardBatchResult[] results,
+            String owner) {
+        for (CashCardBatchResult result : results) {
+            if (!HttpStatus.valueOf(result.status()).is2xxSuccessful()) {
+                continue;
+            }
+            CashCardBatchOperation operation = operations.get(result.index());
+            this.events.publishEvent(switch (operation.op()) {
+                case CREATE -> new CashCardCreated(result.id(), owner, operation.amount());
+                case UPDATE -> new CashCardUpdated(result.id(), owner, operation.amount());
+                case DELETE -> new CashCardDeleted(result.id(), owner);
+            });
+        }
+    }
+
+    private static boolean isValid(CashCardBatchOperation operation) {
+        if (operation == null || operation.op() == null) {
+            return false;
+        }
+        return switch (operation.op()) {
+            case CREATE -> operation.amount() != null;
+            case UPDATE -> operation.id() != null && operation.amount() != null;
+            case DELETE -> operation.id() != null;
+        };
+    }
+
+    private Set<Long> findOwnedIds(List<CashCardBatchOperation> operations, String owner) {
+        List<Long> ids = operations.stream()
+                .filter(operation -> operation != null && operation.op() != CashCardBatchOperation.Type.CREATE
+                        && operation.id() != null)
+                .map(CashCardBatchOperation::id)
+                .distinct()
+                .toList();
+
+        Set<Long> ownedIds = new HashSet<>();
+        for (int from = 0; from < ids.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, ids.size()));
+            ownedIds.addAll(this.jdbcTemplate.queryForList(OWNED_IDS_SQL,
+                    new MapSqlParameterSource("owner", owner).addValue("ids", chunk), Long.class));
+        }
+        return ownedIds;
+    }
+
+    private void insert(List<CashCardBatchOperation> operations, List<Integer> indexes, String owner,
+            CashCardBatchResult[] results) {
+        if (indexes.isEmpty()) {
+            return;
+        }
+        SqlParameterSource[] batchArgs = indexes.stream()
+                .map(i -> new MapSqlParameterSource("amount", operations.get(i).amount()).addValue("owner", owner))
+                .toArray(SqlParameterSource[]::new);
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        this.jdbcTemplate.batchUpdate(INSERT_SQL, batchArgs, keyHolder, new String[] { "ID" });
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int k = 0; k < indexes.size(); k++) {
+            int i = indexes.get(k);
+            Long id = ((Number) keys.get(k).values().iterator().next()).longValue();
+            results[i] = new CashCardBatchResult(i, id, HttpStatus.CREATED.value());
+        }
+    }
+
+    private void write(String sql, List<CashCardBatchOperation> operations, List<Integer> indexes, String owner,
+            CashCardBatchResult[] results) {
+        if (indexes.isEmpty()) {
+            return;
+        }
+        SqlParameterSource[] batchArgs = indexes.stream()
+                .map(i -> new MapSqlParameterSource("id", operations.get(i).id())
+                        .addValue("amount", operations.get(i).amount())
+                        .addValue("owner", owner))
+                .toArray(SqlParameterSource[]::new);
+        int[] rowCounts = this.jdbcTemplate.batchUpdate(sql, batchArgs);
+
+        for (int k = 0; k < indexes.size(); k++) {
+            int i = indexes.get(k);
+            // The card was deleted or changed hands after the ownership check
+            HttpStatus status = rowCounts[k] == 0 ? HttpStatus.NOT_FOUND : HttpStatus.NO_CONTENT;
+            results[i] = new CashCardBatchResult(i, operations.get(i).id(), status.value());
+        }
+    }
+}
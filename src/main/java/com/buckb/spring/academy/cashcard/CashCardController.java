@@ -1,45 +1,122 @@
 package com.buckb.spring.academy.cashcard;
 
+import java.math.BigDecimal;
 import java.security.Principal;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.UriComponentsBuilder;
 
 @RestController
 @RequestMapping("/cashcards")
 public class CashCardController {
 
+    static final String NEXT_CURSOR_HEADER = "Next-Cursor";
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+    private static final String KEY_IN_USE_RETRY_AFTER_SECONDS = "1";
+
     private final CashCardRepository cashCardRepository;
+    private final CashCardSummaryRepository cashCardSummaryRepository;
+    private final CashCardBatchService cashCardBatchService;
+    private final CashCardExporter cashCardExporter;
+    private final ApplicationEventPublisher events;
+    private final IdempotencyStore idempotencyStore;
 
-    public CashCardController(CashCardRepository cashCardRepository) {
+    // Identical reads that arrive while one is running share its query instead of issuing their own
+    private final SingleFlight<String, Optional<CashCard>> cardReads = new SingleFlight<>();
+    private final SingleFlight<String, Page<CashCard>> pageReads = new SingleFlight<>();
+    private final SingleFlight<String, Slice<CashCard>> windowReads = new SingleFlight<>();
+
+    public CashCardController(CashCardRepository cashCardRepository,
+            CashCardSummaryRepository cashCardSummaryRepository, CashCardBatchService cashCardBatchService,
+            CashCardExporter cashCardExporter, ApplicationEventPublisher events, IdempotencyStore idempotencyStore) {
         this.cashCardRepository = cashCardRepository;
+        this.cashCardSummaryRepository = cashCardSummaryRepository;
+        this.cashCardBatchService = cashCardBatchService;
+        this.cashCardExporter = cashCardExporter;
+        this.events = events;
+        this.idempotencyStore = idempotencyStore;
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<CashCard> findById(@PathVariable Long id, Principal principal) {
-        Optional<CashCard> response = this.cashCardRepository
-                .findByIdAndOwner(id, principal.getName());
-        return response.map(ResponseEntity::ok)
+        Optional<CashCard> response = this.cardReads.execute(CashCardRepository.cacheKey(principal.getName(), id),
+                () -> this.cashCardRepository.findByIdAndOwner(id, principal.getName()));
+        // An ETag in the response lets Spring MVC answer a matching If-None-Match with 304 and no body
+        return response.map(card -> ResponseEntity.ok().eTag(CashCardETags.of(card)).body(card))
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Creates a card. A request repeated with the same {@value #IDEMPOTENCY_KEY_HEADER} gets the original
+     * response back, marked with {@value #IDEMPOTENT_REPLAYED_HEADER}, without creating another card.
+     */
     @PostMapping
+    @Transactional
     public ResponseEntity<Void> create(@RequestBody CashCard newCashCard,
+            @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             UriComponentsBuilder uriBuilder, Principal principal) {
+        String requestHash = null;
+        if (idempotencyKey != null) {
+            if (!isValidIdempotencyKey(idempotencyKey)) {
+                return ResponseEntity.badRequest().build();
+            }
+            requestHash = IdempotencyStore.fingerprint("create", newCashCard.amount());
+            Optional<IdempotentResponse> previous = this.idempotencyStore.claim(
+                    principal.getName(), idempotencyKey, requestHash);
+            if (previous.isPresent()) {
+                if (!previous.get().requestHash().equals(requestHash)) {
+                    return ResponseEntity.unprocessableEntity().build();
+                }
+                var location = uriBuilder.path("/cashcards/{id}")
+                        .buildAndExpand(previous.get().card().id())
+                        .toUri();
+                return ResponseEntity.status(previous.get().status())
+                        .location(location)
+                        .header(IDEMPOTENT_REPLAYED_HEADER, "true")
+                        .build();
+            }
+        }
+
         CashCard cardToSave = new CashCard(null, newCashCard.amount(), principal.getName());
         CashCard savedCashCard = this.cashCardRepository.save(cardToSave);
+        this.cashCardSummaryRepository.recordCreated(savedCashCard.id());
+        this.events.publishEvent(new CashCardCreated(savedCashCard.id(), savedCashCard.owner(),
+                savedCashCard.amount()));
+
+        if (requestHash != null) {
+            this.idempotencyStore.complete(principal.getName(), idempotencyKey,
+                    new IdempotentResponse(requestHash, HttpStatus.CREATED.value(), savedCashCard));
+        }
 
         var location = uriBuilder.path("/cashcards/{id}")
                 .buildAndExpand(savedCashCard.id())
@@ -47,21 +124,112 @@ public class CashCardController {
         return ResponseEntity.created(location).build();
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<List<CashCardBatchResult>> batch(@RequestBody List<CashCardBatchOperation> operations,
+            Principal principal) {
+        if (operations.size() > CashCardBatchService.MAX_OPERATIONS
+                || CashCardBatchService.hasRepeatedIds(operations)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(this.cashCardBatchService.apply(operations, principal.getName()));
+    }
+
+    /**
+     * Lists the caller's cards, optionally restricted to an inclusive {@code minAmount}/{@code maxAmount}
+     * range and a set of {@code ids}, all evaluated by the database. The page and its count are read in one
+     * read-only transaction, so both come from the same replica.
+     */
     @GetMapping
-    public ResponseEntity<Iterable<CashCard>> findAll(Pageable pageable, Principal principal) {
-        Page<CashCard> page = this.cashCardRepository.findByOwner(
-                principal.getName(),
-                PageRequest.of(
-                        pageable.getPageNumber(),
-                        pageable.getPageSize(),
-                        pageable.getSort()));
+    @Transactional(readOnly = true)
+    public ResponseEntity<Iterable<CashCard>> findAll(Pageable pageable,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) BigDecimal minAmount,
+            @RequestParam(required = false) BigDecimal maxAmount,
+            @RequestParam(required = false) Set<Long> ids,
+            Principal principal) {
+        CashCardFilter filter;
+        try {
+            filter = CashCardFilter.of(minAmount, maxAmount, ids);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (after != null) {
+            return findWindow(pageable, after, filter, principal);
+        }
+
+        PageRequest pageRequest = PageRequest.of(
+                pageable.getPageNumber(),
+                pageable.getPageSize(),
+                pageable.getSort());
+        Page<CashCard> page;
+        try {
+            page = this.pageReads.execute(principal.getName() + '|' + filter + '|' + pageRequest,
+                    () -> filter.isEmpty()
+                            ? this.cashCardRepository.findByOwner(principal.getName(), pageRequest)
+                            : this.cashCardRepository.findFilteredByOwner(principal.getName(), filter, pageRequest));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok()
+                .eTag(CashCardETags.of(page.getContent()))
+                .body(page.getContent());
+    }
+
+    /**
+     * Keyset mode of {@link #findAll}: an empty {@code after} starts at the first card, and the token for
+     * the following page is returned in the {@value #NEXT_CURSOR_HEADER} header while more cards exist.
+     */
+    private ResponseEntity<Iterable<CashCard>> findWindow(Pageable pageable, String after, CashCardFilter filter,
+            Principal principal) {
+        Sort.Order order = pageable.getSort().stream().findFirst().orElse(Sort.Order.asc("id"));
+        Slice<CashCard> window;
+        try {
+            CashCardCursor cursor = after.isBlank() ? null : CashCardCursor.decode(after);
+            if (cursor != null && !cursor.matches(order)) {
+                return ResponseEntity.badRequest().build();
+            }
+            window = this.windowReads.execute(
+                    principal.getName() + '|' + filter + '|' + order + '|' + after + '|' + pageable.getPageSize(),
+                    () -> this.cashCardRepository.findWindowByOwner(
+                            principal.getName(), filter, order, cursor, pageable.getPageSize()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        var response = ResponseEntity.ok().eTag(CashCardETags.of(window.getContent()));
+        if (window.hasNext()) {
+            CashCard last = window.getContent().get(window.getNumberOfElements() - 1);
+            response.header(NEXT_CURSOR_HEADER, CashCardCursor.after(last, order).encode());
+        }
+        return response.body(window.getContent());
+    }
+
+    @GetMapping("/summary")
+    public ResponseEntity<CashCardSummary> summary(Principal principal) {
+        return ResponseEntity.ok(this.cashCardSummaryRepository.findByOwner(principal.getName())
+                .orElse(CashCardSummary.empty(principal.getName())));
+    }
 
-        return ResponseEntity.ok(page.getContent());
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = "ndjson") String format,
+            Principal principal) {
+        String owner = principal.getName();
+        return switch (format) {
+            case "ndjson" -> ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .body(out -> this.cashCardExporter.writeNdjson(owner, out));
+            case "csv" -> ResponseEntity.ok()
+                    .contentType(CashCardExporter.TEXT_CSV)
+                    .body(out -> this.cashCardExporter.writeCsv(owner, out));
+            default -> ResponseEntity.badRequest().build();
+        };
     }
 
     @PutMapping("/{id}")
+    @Transactional
     public ResponseEntity<Void> update(@PathVariable Long id, @RequestBody CashCard updatedCashCard,
-            Principal principal) {
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch, Principal principal) {
         if (id == null) {
             return ResponseEntity.badRequest().build();
         }
@@ -70,23 +238,126 @@ public class CashCardController {
             return ResponseEntity.badRequest().build();
         }
 
-        if (!this.cashCardRepository.existsByIdAndOwner(id, principal.getName())) {
+        Optional<CashCard> current = this.cashCardRepository.findByIdAndOwner(id, principal.getName());
+        if (current.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
+        if (ifMatch != null && !matches(ifMatch, current.get())) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        }
         CashCard cardToSave = new CashCard(
                 id,
                 updatedCashCard.amount(),
-                principal.getName());
-        this.cashCardRepository.save(cardToSave);
-        return ResponseEntity.noContent().build();
+                principal.getName(),
+                current.get().version());
+        CashCard savedCashCard;
+        try {
+            savedCashCard = this.cashCardRepository.save(cardToSave);
+        } catch (DataAccessException e) {
+            if (!e.contains(OptimisticLockingFailureException.class)) {
+                throw e;
+            }
+            // Someone else changed the card between our read and the versioned UPDATE
+            return ResponseEntity.status(ifMatch != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT)
+                    .build();
+        }
+        this.cashCardSummaryRepository.recordUpdated(id, principal.getName(), current.get().amount());
+        this.events.publishEvent(new CashCardUpdated(id, principal.getName(), savedCashCard.amount()));
+        return ResponseEntity.noContent().eTag(CashCardETags.of(savedCashCard)).build();
+    }
+
+    /**
+     * Adds a delta to the balance. Like {@link #create}, it can be retried safely with an
+     * {@value #IDEMPOTENCY_KEY_HEADER}, which replays the original outcome instead of adjusting again.
+     */
+    @PostMapping("/{id}/adjust")
+    @Transactional
+    public ResponseEntity<CashCard> adjust(@PathVariable Long id, @RequestBody CashCardAdjustment adjustment,
+            @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            Principal principal) {
+        if (adjustment.delta() == null) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        String requestHash = null;
+        if (idempotencyKey != null) {
+            if (!isValidIdempotencyKey(idempotencyKey)) {
+                return ResponseEntity.badRequest().build();
+            }
+            requestHash = IdempotencyStore.fingerprint("adjust", id, adjustment.delta(), adjustment.nonNegative());
+            Optional<IdempotentResponse> previous = this.idempotencyStore.claim(
+                    principal.getName(), idempotencyKey, requestHash);
+            if (previous.isPresent()) {
+                if (!previous.get().requestHash().equals(requestHash)) {
+                    return ResponseEntity.unprocessableEntity().build();
+                }
+                var replay = ResponseEntity.status(previous.get().status()).header(IDEMPOTENT_REPLAYED_HEADER, "true");
+                CashCard card = previous.get().card();
+                return card == null ? replay.build() : replay.eTag(CashCardETags.of(card)).body(card);
+            }
+        }
+
+        ResponseEntity<CashCard> response;
+        Optional<CashCard> adjusted = this.cashCardRepository.adjustAmount(
+                id, principal.getName(), adjustment.delta(), !adjustment.nonNegative());
+        if (adjusted.isPresent()) {
+            this.cashCardSummaryRepository.recordUpdated(id, principal.getName(),
+                    adjusted.get().amount().subtract(adjustment.delta()));
+            this.events.publishEvent(new CashCardUpdated(id, principal.getName(), adjusted.get().amount()));
+            response = ResponseEntity.ok().eTag(CashCardETags.of(adjusted.get())).body(adjusted.get());
+        } else if (!this.cashCardRepository.existsByIdAndOwner(id, principal.getName())) {
+            // Nothing was updated: either the card is not ours, or the guard rejected the delta
+            response = ResponseEntity.notFound().build();
+        } else {
+            response = ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+
+        if (requestHash != null) {
+            this.idempotencyStore.complete(principal.getName(), idempotencyKey,
+                    new IdempotentResponse(requestHash, response.getStatusCode().value(), response.getBody()));
+        }
+        return response;
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> delete(@PathVariable Long id, Principal principal) {
-        if (!this.cashCardRepository.existsByIdAndOwner(id, principal.getName())) {
+    @Transactional
+    public ResponseEntity<Void> delete(@PathVariable Long id,
+            @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch, Principal principal) {
+        Optional<CashCard> current = this.cashCardRepository.findByIdAndOwner(id, principal.getName());
+        if (current.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
-        this.cashCardRepository.deleteById(id);
+        if (ifMatch != null && !matches(ifMatch, current.get())) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        }
+        // Deleting the version we read guarantees the summary is adjusted by the amount that was removed
+        if (!this.cashCardRepository.softDeleteByIdAndOwnerAndVersion(
+                id, principal.getName(), current.get().version())) {
+            return ResponseEntity.status(ifMatch != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT)
+                    .build();
+        }
+        this.cashCardSummaryRepository.recordDeleted(principal.getName(), current.get().amount());
+        this.events.publishEvent(new CashCardDeleted(id, principal.getName()));
         return ResponseEntity.noContent().build();
     }
+
+    /**
+     * A retry that arrives while the original request still holds its {@value #IDEMPOTENCY_KEY_HEADER} is
+     * asked to come back, by when the original has usually finished and can be replayed.
+     */
+    @ExceptionHandler(IdempotencyStore.KeyInUseException.class)
+    ResponseEntity<Void> keyInUse() {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header(HttpHeaders.RETRY_AFTER, KEY_IN_USE_RETRY_AFTER_SECONDS)
+                .build();
+    }
+
+    private static boolean isValidIdempotencyKey(String idempotencyKey) {
+        return !idempotencyKey.isBlank() && idempotencyKey.length() <= MAX_IDEMPOTENCY_KEY_LENGTH;
+    }
+
+    private static boolean matches(String ifMatch, CashCard current) {
+        Set<Long> versions = CashCardETags.matchingVersions(ifMatch);
+        return versions == null || versions.contains(current.version());
+    }
 }
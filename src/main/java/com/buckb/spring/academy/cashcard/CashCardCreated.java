@@ -0,0 +1,9 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.math.BigDecimal;
+
+/**
+ * Published when a card was created, in the transaction that inserted it.
+ */
+public record CashCardCreated(Long id, String owner, BigDecimal amount) {
+}
@@ -0,0 +1,56 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.springframework.data.domain.Sort;
+
+/**
+ * Position after the last card of a keyset page, handed to clients as an opaque {@code after} token.
+ * <p>
+ * The token carries the sort it was produced for, so it can't be replayed against a different ordering.
+ *
+ * @param order the sort the page was read with
+ * @param amount the amount of the last card, only used when sorting by amount
+ * @param id the id of the last card, the tie-breaker for every sort
+ */
+public record CashCardCursor(Sort.Order order, BigDecimal amount, Long id) {
+
+    private static final String SEPARATOR = "|";
+
+    public static CashCardCursor after(CashCard last, Sort.Order order) {
+        return new CashCardCursor(order, last.amount(), last.id());
+    }
+
+    public String encode() {
+        String raw = String.join(SEPARATOR,
+                this.order.getProperty(),
+                this.order.getDirection().name(),
+                this.amount == null ? "" : this.amount.toPlainString(),
+                String.valueOf(this.id));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token was not produced by {@link #encode()}
+     */
+    public static CashCardCursor decode(String token) {
+        String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        String[] parts = raw.split("\\|", -1);
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Malformed cursor: " + token);
+        }
+        Sort.Order order = new Sort.Order(Sort.Direction.valueOf(parts[1]), parts[0]);
+        BigDecimal amount = parts[2].isEmpty() ? null : new BigDecimal(parts[2]);
+        if (amount == null && "amount".equals(order.getProperty())) {
+            throw new IllegalArgumentException("Cursor without the amount it sorts by: " + token);
+        }
+        return new CashCardCursor(order, amount, Long.valueOf(parts[3]));
+    }
+
+    public boolean matches(Sort.Order other) {
+        return this.order.getProperty().equals(other.getProperty())
+                && this.order.getDirection() == other.getDirection();
+    }
+}
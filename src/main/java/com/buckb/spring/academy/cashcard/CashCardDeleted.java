@@ -0,0 +1,7 @@
+package com.buckb.spring.academy.cashcard;
+
+/**
+ * Published when a card was deleted, in the transaction that deleted it.
+ */
+public record CashCardDeleted(Long id, String owner) {
+}
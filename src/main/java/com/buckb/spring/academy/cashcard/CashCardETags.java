@@ -0,0 +1,54 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Entity tags for cards, derived from their {@link CashCard#version() version}.
+ */
+final class CashCardETags {
+
+    private CashCardETags() {
+    }
+
+    static String of(CashCard card) {
+        return "\"" + card.version() + "\"";
+    }
+
+    /**
+     * A tag that changes whenever a card of the list is added, removed or modified. It is weak because
+     * lists are large enough to be compressed, and Tomcat leaves responses with a strong tag uncompressed.
+     */
+    static String of(List<CashCard> cards) {
+        long hash = 1;
+        for (CashCard card : cards) {
+            hash = 31 * hash + card.id();
+            hash = 31 * hash + (card.version() == null ? 0 : card.version());
+        }
+        return "W/\"" + Long.toHexString(hash) + "-" + cards.size() + "\"";
+    }
+
+    /**
+     * Versions listed in an {@code If-Match} header, or {@code null} for {@code *}, which matches any
+     * existing card. Tags that are not card versions are left out, so they never match.
+     */
+    static Set<Long> matchingVersions(String ifMatch) {
+        if (ifMatch.trim().equals("*")) {
+            return null;
+        }
+        Set<Long> versions = new HashSet<>();
+        for (String tag : ifMatch.split(",")) {
+            String value = tag.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            try {
+                versions.add(Long.valueOf(value.replace("\"", "")));
+            } catch (NumberFormatException e) {
+                // Not one of our tags
+            }
+        }
+        return versions;
+    }
+}
@@ -0,0 +1,18 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for redelivering and cleaning up card event publications.
+ *
+ * @param retryAfter how old an incomplete publication must be before it is handed to its listener again
+ * @param retention how long completed publications are kept before they are purged
+ */
+@ConfigurationProperties("cashcard.events")
+public record CashCardEventProperties(
+        @DefaultValue("1m") Duration retryAfter,
+        @DefaultValue("7d") Duration retention) {
+}
@@ -0,0 +1,149 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.DataClassRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Streams every card of an owner straight from a forward-only cursor to the response, one row at a time,
+ * so memory use does not depend on how many cards the owner has.
+ * <p>
+ * Embedded H2 ignores the fetch size and materializes a whole result before returning its first row (rows
+ * beyond {@code MAX_MEMORY_ROWS} are spilled to disk), unless the session runs with
+ * {@code LAZY_QUERY_EXECUTION}. The export switches it on for its own query only, and the
+ * {@code (owner, id)} index supplies the order, so rows are read as they are written out.
+ * <p>
+ * The body is written on an asynchronous request thread, outside the controller's transactions, so the query
+ * runs in a read-only transaction of its own that can be routed to a read replica.
+ */
+@Component
+public class CashCardExporter {
+
+    public static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+
+    private static final String SELECT_SQL = "SELECT * FROM cash_card WHERE owner = ? AND deleted_at IS NULL"
+            + " ORDER BY id";
+    private static final String LAZY_ON_SQL = "SET LAZY_QUERY_EXECUTION TRUE";
+    private static final String LAZY_OFF_SQL = "SET LAZY_QUERY_EXECUTION FALSE";
+    private static final RowMapper<CashCard> ROW_MAPPER = new DataClassRowMapper<>(CashCard.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter cardWriter;
+    private final int fetchSize;
+
+    public CashCardExporter(DataSource dataSource, PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper, @Value("${cashcard.export.fetch-size:500}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.fetchSize = fetchSize;
+        this.objectMapper = objectMapper;
+        // Flushing after every card would turn each row into its own network write
+        this.cardWriter = objectMapper.writerFor(CashCard.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Writes one JSON object per line ({@code application/x-ndjson}).
+     */
+    public void writeNdjson(String owner, OutputStream out) throws IOException {
+        JsonGenerator generator = this.objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+
+        stream(owner, rs -> {
+            try {
+                this.cardWriter.writeValue(generator, ROW_MAPPER.mapRow(rs, 0));
+                generator.writeRaw('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        generator.close();
+    }
+
+    /**
+     * Writes a header line followed by one {@code id,amount,owner} line per card.
+     */
+    public void writeCsv(String owner, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write("id,amount,owner\n");
+
+        stream(owner, rs -> {
+            CashCard card = ROW_MAPPER.mapRow(rs, 0);
+            try {
+                writer.write(String.valueOf(card.id()));
+                writer.write(',');
+                writer.write(card.amount().toPlainString());
+                writer.write(',');
+                writer.write(csvField(card.owner()));
+                writer.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        writer.flush();
+    }
+
+    private void stream(String owner, RowCallbackHandler handler) throws IOException {
+        ConnectionCallback<Void> query = con -> {
+            // A session setting: reset it before the connection goes back to the pool
+            try (Statement lazy = con.createStatement()) {
+                lazy.execute(LAZY_ON_SQL);
+                try (PreparedStatement statement = con.prepareStatement(SELECT_SQL,
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+                    statement.setFetchSize(this.fetchSize);
+                    statement.setString(1, owner);
+                    try (ResultSet rs = statement.executeQuery()) {
+                        while (rs.next()) {
+                            handler.processRow(rs);
+                        }
+                    }
+                } finally {
+                    lazy.execute(LAZY_OFF_SQL);
+                }
+            }
+            return null;
+        };
+        try {
+            this.readOnlyTransaction.executeWithoutResult(status -> this.jdbcTemplate.execute(query));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,69 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+
+/**
+ * Optional restrictions on an owner's cards, applied in the database. Every condition that is set must
+ * hold; the amount bounds are inclusive and use the {@code (owner, amount, id)} index.
+ *
+ * @param minAmount lowest balance to include, or {@code null}
+ * @param maxAmount highest balance to include, or {@code null}
+ * @param ids cards to include, or empty for any
+ */
+public record CashCardFilter(BigDecimal minAmount, BigDecimal maxAmount, SortedSet<Long> ids) {
+
+    static final int MAX_IDS = 1_000;
+
+    static final CashCardFilter NONE = new CashCardFilter(null, null, null);
+
+    /**
+     * @throws IllegalArgumentException if {@code minAmount} is above {@code maxAmount} or there are more than
+     * {@value #MAX_IDS} ids
+     */
+    public CashCardFilter {
+        if (minAmount != null && maxAmount != null && minAmount.compareTo(maxAmount) > 0) {
+            throw new IllegalArgumentException("minAmount must not be greater than maxAmount");
+        }
+        if (ids != null && ids.size() > MAX_IDS) {
+            throw new IllegalArgumentException("At most " + MAX_IDS + " ids can be requested at once");
+        }
+        ids = ids == null ? Collections.emptySortedSet() : Collections.unmodifiableSortedSet(new TreeSet<>(ids));
+    }
+
+    static CashCardFilter of(BigDecimal minAmount, BigDecimal maxAmount, Set<Long> ids) {
+        return new CashCardFilter(minAmount, maxAmount, ids == null ? null : new TreeSet<>(ids));
+    }
+
+    public boolean isEmpty() {
+        return this.minAmount == null && this.maxAmount == null && this.ids.isEmpty();
+    }
+
+    /**
+     * The conditions as {@code AND ...} clauses to append to a {@code WHERE owner = :owner ...}.
+     */
+    String sql() {
+        StringBuilder sql = new StringBuilder();
+        if (this.minAmount != null) {
+            sql.append(" AND amount >= :minAmount");
+        }
+        if (this.maxAmount != null) {
+            sql.append(" AND amount <= :maxAmount");
+        }
+        if (!this.ids.isEmpty()) {
+            sql.append(" AND id IN (:ids)");
+        }
+        return sql.toString();
+    }
+
+    MapSqlParameterSource addParameters(MapSqlParameterSource parameters) {
+        return parameters.addValue("minAmount", this.minAmount)
+                .addValue("maxAmount", this.maxAmount)
+                .addValue("ids", this.ids);
+    }
+}
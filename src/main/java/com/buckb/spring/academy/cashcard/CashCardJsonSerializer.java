@@ -0,0 +1,46 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import org.springframework.boot.jackson.JsonComponent;
+
+/**
+ * Writes a {@link CashCard} field by field instead of through the reflective bean serializer.
+ * <p>
+ * The field names are encoded once and copied into the generator's buffer, and each value goes straight to
+ * the typed {@code writeNumber}/{@code writeString} call. The output is byte-identical to the default
+ * serializer: same field order, {@code null}s included, {@code version} left out. Lists of cards use this
+ * serializer too, through Jackson's collection serializer.
+ */
+@JsonComponent
+public class CashCardJsonSerializer extends StdSerializer<CashCard> {
+
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString AMOUNT = new SerializedString("amount");
+    private static final SerializedString OWNER = new SerializedString("owner");
+
+    public CashCardJsonSerializer() {
+        super(CashCard.class);
+    }
+
+    @Override
+    public void serialize(CashCard card, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeStartObject(card);
+        generator.writeFieldName(ID);
+        if (card.id() == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(card.id());
+        }
+        generator.writeFieldName(AMOUNT);
+        generator.writeNumber(card.amount());
+        generator.writeFieldName(OWNER);
+        generator.writeString(card.owner());
+        generator.writeEndObject();
+    }
+}
@@ -0,0 +1,31 @@
+package com.buckb.spring.academy.cashcard;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.modulith.events.ApplicationModuleListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hands card changes to the owner's notification channel. Runs asynchronously after the card transaction
+ * committed; an exception leaves the publication incomplete so it is retried later.
+ */
+@Component
+public class CashCardNotifier {
+
+    private static final Logger log = LoggerFactory.getLogger(CashCardNotifier.class);
+
+    @ApplicationModuleListener
+    void on(CashCardCreated event) {
+        log.info("Card {} created for {} with {}", event.id(), event.owner(), event.amount());
+    }
+
+    @ApplicationModuleListener
+    void on(CashCardUpdated event) {
+        log.info("Card {} of {} now holds {}", event.id(), event.owner(), event.amount());
+    }
+
+    @ApplicationModuleListener
+    void on(CashCardDeleted event) {
+        log.info("Card {} of {} deleted", event.id(), event.owner());
+    }
+}
@@ -1,18 +1,85 @@
 package com.buckb.spring.academy.cashcard;
 
+import java.math.BigDecimal;
 import java.util.Optional;
 
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.repository.CrudRepository;
-import org.springframework.data.repository.PagingAndSortingRepository;
-import org.springframework.stereotype.Repository;
+import org.springframework.data.jdbc.repository.query.Modifying;
+import org.springframework.data.jdbc.repository.query.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
-@Repository
-public interface CashCardRepository extends CrudRepository<CashCard, Long>, PagingAndSortingRepository<CashCard, Long> {
+/**
+ * Cards of an owner. Deleted cards stay in {@code cash_card} with {@code deleted_at} set until
+ * {@link CashCardTombstones} moves them out, so every query here leaves them out; the unscoped finders of
+ * {@code CrudRepository} are deliberately not exposed for that reason.
+ * <p>
+ * Finders run in read-only transactions, which are served by a replica when replicas are configured.
+ */
+public interface CashCardRepository extends Repository<CashCard, Long>, CashCardWindowRepository {
+
+    String CARDS_CACHE = "cashCards";
+    String EXISTS_CACHE = "cashCardExists";
+
+    /**
+     * Key of a card in {@link #CARDS_CACHE} and {@link #EXISTS_CACHE}; the SpEL keys below build the same value.
+     */
+    static String cacheKey(String owner, Long id) {
+        return owner + ":" + id;
+    }
+
+    @Cacheable(cacheNames = CARDS_CACHE, key = "#owner + ':' + #id")
+    @Transactional(readOnly = true)
+    @Query("SELECT * FROM cash_card WHERE id = :id AND owner = :owner AND deleted_at IS NULL")
     Optional<CashCard> findByIdAndOwner(Long id, String owner);
 
-    Page<CashCard> findByOwner(String owner, PageRequest pageRequest);
+    default Page<CashCard> findByOwner(String owner, PageRequest pageRequest) {
+        return findFilteredByOwner(owner, CashCardFilter.NONE, pageRequest);
+    }
 
+    @Cacheable(cacheNames = EXISTS_CACHE, key = "#owner + ':' + #id")
+    @Transactional(readOnly = true)
+    @Query("SELECT COUNT(*) > 0 FROM cash_card WHERE id = :id AND owner = :owner AND deleted_at IS NULL")
     boolean existsByIdAndOwner(Long id, String owner);
+
+    @Caching(
+            put = @CachePut(cacheNames = CARDS_CACHE, key = "#result.owner() + ':' + #result.id()"),
+            evict = @CacheEvict(cacheNames = EXISTS_CACHE, key = "#result.owner() + ':' + #result.id()"))
+    <S extends CashCard> S save(S cashCard);
+
+    /**
+     * Marks the card as deleted, provided it is still at {@code version}. The version is bumped as well, so a
+     * concurrent update of the card fails its optimistic lock instead of writing to a deleted card.
+     */
+    @Modifying
+    @Query("""
+            UPDATE cash_card SET deleted_at = CURRENT_TIMESTAMP, version = version + 1
+            WHERE id = :id AND owner = :owner AND version = :version AND deleted_at IS NULL
+            """)
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CARDS_CACHE, key = "#owner + ':' + #id"),
+            @CacheEvict(cacheNames = EXISTS_CACHE, key = "#owner + ':' + #id") })
+    boolean softDeleteByIdAndOwnerAndVersion(Long id, String owner, Long version);
+
+    /**
+     * Adds {@code delta} to the balance in a single conditional {@code UPDATE}, so concurrent adjustments
+     * can't overwrite each other.
+     *
+     * @param allowNegative whether the resulting balance may drop below zero
+     * @return the updated card, or empty if the card is not the owner's or the guard rejected the delta
+     */
+    @Transactional
+    @Query("""
+            SELECT * FROM FINAL TABLE (
+                UPDATE cash_card SET amount = amount + :delta, version = version + 1
+                WHERE id = :id AND owner = :owner AND deleted_at IS NULL
+                    AND (:allowNegative OR amount + :delta >= 0))
+            """)
+    @CacheEvict(cacheNames = CARDS_CACHE, key = "#owner + ':' + #id")
+    Optional<CashCard> adjustAmount(Long id, String owner, BigDecimal delta, boolean allowNegative);
 }
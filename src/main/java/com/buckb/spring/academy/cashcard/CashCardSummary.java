@@ -0,0 +1,20 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.math.BigDecimal;
+
+import org.springframework.data.annotation.Id;
+
+/**
+ * Aggregates over all cards of one owner, maintained by the write paths in the same transaction as the
+ * card changes themselves.
+ *
+ * @param minAmount the smallest balance, {@code null} when the owner has no cards
+ * @param maxAmount the largest balance, {@code null} when the owner has no cards
+ */
+public record CashCardSummary(@Id String owner, long cardCount, BigDecimal totalAmount, BigDecimal minAmount,
+        BigDecimal maxAmount) {
+
+    static CashCardSummary empty(String owner) {
+        return new CashCardSummary(owner, 0, BigDecimal.ZERO, null, null);
+    }
+}
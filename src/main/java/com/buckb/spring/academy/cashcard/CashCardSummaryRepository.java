@@ -0,0 +1,92 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import org.springframework.data.jdbc.repository.query.Modifying;
+import org.springframework.data.jdbc.repository.query.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Keeps {@code cash_card_summary} in step with {@code cash_card}. Each method must run in the transaction
+ * that changed the card, after the card statement itself.
+ * <p>
+ * Count and total are adjusted by the delta. Minimum and maximum are widened in place, and only fall back to
+ * the owner's {@code (owner, amount, id)} index when the card that held the extreme value changed.
+ */
+public interface CashCardSummaryRepository extends Repository<CashCardSummary, String> {
+
+    @Transactional(readOnly = true)
+    Optional<CashCardSummary> findByOwner(String owner);
+
+    @Modifying
+    @Query("""
+            MERGE INTO cash_card_summary s
+            USING (SELECT owner, amount FROM cash_card WHERE id = :id) c
+            ON s.owner = c.owner
+            WHEN MATCHED THEN UPDATE SET
+                card_count = s.card_count + 1,
+                total_amount = s.total_amount + c.amount,
+                min_amount = LEAST(s.min_amount, c.amount),
+                max_amount = GREATEST(s.max_amount, c.amount)
+            WHEN NOT MATCHED THEN INSERT (owner, card_count, total_amount, min_amount, max_amount)
+                VALUES (c.owner, 1, c.amount, c.amount, c.amount)
+            """)
+    void recordCreated(Long id);
+
+    /**
+     * @param oldAmount the balance the card had before the update
+     */
+    @Modifying
+    @Query("""
+            UPDATE cash_card_summary s SET
+                total_amount = s.total_amount - :oldAmount + (SELECT amount FROM cash_card WHERE id = :id),
+                min_amount = CASE WHEN s.min_amount = :oldAmount
+                    THEN (SELECT MIN(amount) FROM cash_card WHERE owner = s.owner AND deleted_at IS NULL)
+                    ELSE LEAST(s.min_amount, (SELECT amount FROM cash_card WHERE id = :id)) END,
+                max_amount = CASE WHEN s.max_amount = :oldAmount
+                    THEN (SELECT MAX(amount) FROM cash_card WHERE owner = s.owner AND deleted_at IS NULL)
+                    ELSE GREATEST(s.max_amount, (SELECT amount FROM cash_card WHERE id = :id)) END
+            WHERE s.owner = :owner
+            """)
+    void recordUpdated(Long id, String owner, BigDecimal oldAmount);
+
+    /**
+     * @param amount the balance of the card that was deleted
+     */
+    @Modifying
+    @Query("""
+            UPDATE cash_card_summary s SET
+                card_count = s.card_count - 1,
+                total_amount = s.total_amount - :amount,
+                min_amount = CASE WHEN s.min_amount = :amount
+                    THEN (SELECT MIN(amount) FROM cash_card WHERE owner = s.owner AND deleted_at IS NULL)
+                    ELSE s.min_amount END,
+                max_amount = CASE WHEN s.max_amount = :amount
+                    THEN (SELECT MAX(amount) FROM cash_card WHERE owner = s.owner AND deleted_at IS NULL)
+                    ELSE s.max_amount END
+            WHERE s.owner = :owner
+            """)
+    void recordDeleted(String owner, BigDecimal amount);
+
+    @Modifying
+    @Query("DELETE FROM cash_card_summary WHERE owner = :owner")
+    void deleteByOwner(String owner);
+
+    @Modifying
+    @Query("""
+            INSERT INTO cash_card_summary (owner, card_count, total_amount, min_amount, max_amount)
+            SELECT owner, COUNT(*), SUM(amount), MIN(amount), MAX(amount)
+            FROM cash_card WHERE owner = :owner AND deleted_at IS NULL GROUP BY owner
+            """)
+    void insertFromCards(String owner);
+
+    /**
+     * Recomputes the summary from scratch, for writes that touch many cards at once.
+     */
+    default void rebuild(String owner) {
+        deleteByOwner(owner);
+        insertFromCards(owner);
+    }
+}
@@ -0,0 +1,79 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Moves deleted cards out of {@code cash_card} in the background, so a delete on the request path is a
+ * single {@code UPDATE} and the table only holds recently deleted cards besides the live ones.
+ * <p>
+ * Cards deleted longer than {@link TombstoneProperties#retention()} ago are archived (or dropped) in chunks,
+ * each in its own short transaction, so the job never holds locks on many rows at once. Chunks are taken in id
+ * order and each one seeks past the last id of the previous one on the primary key, so a run reads the table
+ * once in total rather than once per chunk, and {@code deleted_at} needs no index of its own.
+ */
+@Component
+public class CashCardTombstones {
+
+    static final String SELECT_SQL = """
+            SELECT id FROM cash_card WHERE id > :after AND deleted_at < :cutoff ORDER BY id LIMIT :limit
+            """;
+    private static final String ARCHIVE_SQL = """
+            INSERT INTO cash_card_archive (id, amount, owner, version, deleted_at, archived_at)
+            SELECT id, amount, owner, version, deleted_at, :now FROM cash_card WHERE id IN (:ids)
+            """;
+    private static final String DELETE_SQL = "DELETE FROM cash_card WHERE id IN (:ids) AND deleted_at IS NOT NULL";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TombstoneProperties properties;
+
+    public CashCardTombstones(NamedParameterJdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            TombstoneProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+    }
+
+    /**
+     * @return the number of deleted cards moved out of {@code cash_card}
+     */
+    @Scheduled(fixedDelayString = "${cashcard.tombstones.purge-interval:5m}")
+    public int compact() {
+        Instant now = Instant.now();
+        MapSqlParameterSource parameters = new MapSqlParameterSource("now", Timestamp.from(now))
+                .addValue("cutoff", Timestamp.from(now.minus(this.properties.retention())))
+                .addValue("limit", this.properties.chunkSize());
+        int total = 0;
+        Chunk chunk = new Chunk(0, 0, Long.MIN_VALUE);
+        do {
+            parameters.addValue("after", chunk.lastId());
+            chunk = this.transactionTemplate.execute(status -> compactChunk(parameters));
+            total += chunk.moved();
+        } while (chunk.selected() == this.properties.chunkSize());
+        return total;
+    }
+
+    private Chunk compactChunk(MapSqlParameterSource parameters) {
+        List<Long> ids = this.jdbcTemplate.queryForList(SELECT_SQL, parameters, Long.class);
+        if (ids.isEmpty()) {
+            return new Chunk(0, 0, Long.MIN_VALUE);
+        }
+        parameters.addValue("ids", ids);
+        if (this.properties.archive()) {
+            this.jdbcTemplate.update(ARCHIVE_SQL, parameters);
+        }
+        return new Chunk(ids.size(), this.jdbcTemplate.update(DELETE_SQL, parameters), ids.get(ids.size() - 1));
+    }
+
+    private record Chunk(int selected, int moved, long lastId) {
+    }
+}
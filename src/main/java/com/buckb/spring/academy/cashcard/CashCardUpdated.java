@@ -0,0 +1,11 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.math.BigDecimal;
+
+/**
+ * Published when the balance of a card changed, in the transaction that changed it.
+ *
+ * @param amount the new balance
+ */
+public record CashCardUpdated(Long id, String owner, BigDecimal amount) {
+}
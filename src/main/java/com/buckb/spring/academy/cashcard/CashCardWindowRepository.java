@@ -0,0 +1,29 @@
+package com.buckb.spring.academy.cashcard;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Keyset (seek) and filtered access to an owner's cards. Unlike {@link CashCardRepository#findByOwner}
+ * the keyset variant issues no count query and the cost of a page does not grow with its depth.
+ */
+public interface CashCardWindowRepository {
+
+    /**
+     * @param after the position to continue from, or {@code null} for the first page
+     * @throws IllegalArgumentException if the sort property is neither {@code id} nor {@code amount}
+     */
+    Slice<CashCard> findWindowByOwner(String owner, CashCardFilter filter, Sort.Order order, CashCardCursor after,
+            int limit);
+
+    /**
+     * Offset paging over the cards that match {@code filter}, sorted by {@code id} unless the page says
+     * otherwise.
+     *
+     * @throws IllegalArgumentException if the page sorts by a property other than {@code id},
+     * {@code amount} or {@code owner}
+     */
+    Page<CashCard> findFilteredByOwner(String owner, CashCardFilter filter, Pageable pageable);
+}
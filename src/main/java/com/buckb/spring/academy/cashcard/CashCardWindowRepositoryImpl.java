@@ -0,0 +1,104 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.jdbc.core.DataClassRowMapper;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+class CashCardWindowRepositoryImpl implements CashCardWindowRepository {
+
+    private static final RowMapper<CashCard> ROW_MAPPER = new DataClassRowMapper<>(CashCard.class);
+    private static final Set<String> SORTABLE_PROPERTIES = Set.of("id", "amount", "owner");
+    private static final String FROM_OWNER_CARDS = " FROM cash_card WHERE owner = :owner AND deleted_at IS NULL";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    CashCardWindowRepositoryImpl(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<CashCard> findWindowByOwner(String owner, CashCardFilter filter, Sort.Order order,
+            CashCardCursor after, int limit) {
+        MapSqlParameterSource parameters = filter.addParameters(new MapSqlParameterSource("owner", owner))
+                // One extra row tells us whether there is a next page
+                .addValue("limit", limit + 1);
+        if (after != null) {
+            parameters.addValue("amount", after.amount()).addValue("id", after.id());
+        }
+
+        List<CashCard> cards = this.jdbcTemplate.query(windowSql(filter, order, after != null), parameters,
+                ROW_MAPPER);
+        boolean hasNext = cards.size() > limit;
+        List<CashCard> content = hasNext ? cards.subList(0, limit) : cards;
+        return new SliceImpl<>(content, PageRequest.ofSize(limit).withSort(Sort.by(order)), hasNext);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<CashCard> findFilteredByOwner(String owner, CashCardFilter filter, Pageable pageable) {
+        MapSqlParameterSource parameters = filter.addParameters(new MapSqlParameterSource("owner", owner))
+                .addValue("limit", pageable.getPageSize())
+                .addValue("offset", pageable.getOffset());
+        List<CashCard> content = this.jdbcTemplate.query(pageSql(filter, pageable.getSort()), parameters,
+                ROW_MAPPER);
+        // The count is only queried when the page itself can't tell the total
+        return PageableExecutionUtils.getPage(content, pageable, () -> this.jdbcTemplate.queryForObject(
+                "SELECT COUNT(*)" + FROM_OWNER_CARDS + filter.sql(), parameters, Long.class));
+    }
+
+    static String pageSql(CashCardFilter filter, Sort sort) {
+        StringBuilder sql = new StringBuilder("SELECT *").append(FROM_OWNER_CARDS)
+                .append(filter.sql())
+                .append(" ORDER BY ");
+        boolean sortedById = false;
+        for (Sort.Order order : sort) {
+            if (!SORTABLE_PROPERTIES.contains(order.getProperty())) {
+                throw new IllegalArgumentException("Cannot sort on property " + order.getProperty());
+            }
+            sql.append(order.getProperty()).append(order.isAscending() ? " ASC, " : " DESC, ");
+            sortedById |= order.getProperty().equals("id");
+        }
+        // id breaks ties so that rows don't move between pages
+        sql.append(sortedById ? "" : "id ASC, ");
+        sql.setLength(sql.length() - 2);
+        return sql.append(" LIMIT :limit OFFSET :offset").toString();
+    }
+
+    static String windowSql(CashCardFilter filter, Sort.Order order, boolean hasCursor) {
+        String direction = order.isAscending() ? "ASC" : "DESC";
+        String comparison = order.isAscending() ? ">" : "<";
+
+        StringBuilder sql = new StringBuilder("SELECT *").append(FROM_OWNER_CARDS)
+                .append(filter.sql());
+        switch (order.getProperty()) {
+            case "id" -> {
+                if (hasCursor) {
+                    sql.append(" AND id ").append(comparison).append(" :id");
+                }
+                sql.append(" ORDER BY id ").append(direction);
+            }
+            case "amount" -> {
+                if (hasCursor) {
+                    sql.append(" AND (amount ").append(comparison).append(" :amount")
+                            .append(" OR (amount = :amount AND id ").append(comparison).append(" :id))");
+                }
+                sql.append(" ORDER BY amount ").append(direction).append(", id ").append(direction);
+            }
+            default -> throw new IllegalArgumentException("Cannot seek on property " + order.getProperty());
+        }
+        return sql.append(" LIMIT :limit").toString();
+    }
+}
@@ -0,0 +1,38 @@
+package com.buckb.spring.academy.cashcard;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+/**
+ * Buffers the responses of {@code /cashcards} so they are sent with a {@code Content-Length}. Tomcat applies
+ * {@code server.compression.min-response-size} only to responses of known length, a chunked JSON body is
+ * compressed however small it is. The exports are streamed and left alone.
+ */
+@Component
+public class ContentLengthFilter extends OncePerRequestFilter {
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !path.startsWith("/cashcards") || path.startsWith("/cashcards/export");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ContentCachingResponseWrapper buffered = new ContentCachingResponseWrapper(response);
+        try {
+            chain.doFilter(request, buffered);
+        } finally {
+            buffered.copyBodyToResponse();
+        }
+    }
+}
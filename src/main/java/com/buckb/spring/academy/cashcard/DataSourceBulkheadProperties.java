@@ -0,0 +1,20 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for the concurrency limit in front of the connection pool.
+ *
+ * @param enabled whether connections are handed out through a {@link BulkheadDataSource}
+ * @param maxConcurrent how many connections may be checked out at once, usually the pool size
+ * @param acquireTimeout how long a caller waits for a permit before the request fails
+ */
+@ConfigurationProperties("cashcard.datasource.bulkhead")
+public record DataSourceBulkheadProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("10") int maxConcurrent,
+        @DefaultValue("5s") Duration acquireTimeout) {
+}
@@ -0,0 +1,36 @@
+package com.buckb.spring.academy.cashcard;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+@Configuration
+@EnableConfigurationProperties(DataSourceBulkheadProperties.class)
+public class DataSourceConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "cashcard.datasource.bulkhead.enabled", havingValue = "true")
+    static BeanPostProcessor dataSourceBulkheadPostProcessor(Environment environment) {
+        // Bound directly: a static post-processor is created before configuration properties beans
+        DataSourceBulkheadProperties properties = Binder.get(environment)
+                .bindOrCreate("cashcard.datasource.bulkhead", DataSourceBulkheadProperties.class);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                // The replica router sits behind the primary proxy, whose connections are already limited
+                if (bean instanceof DataSource dataSource && !(bean instanceof BulkheadDataSource)
+                        && !(bean instanceof ReplicaRoutingDataSource)) {
+                    return new BulkheadDataSource(dataSource, properties.maxConcurrent(),
+                            properties.acquireTimeout());
+                }
+                return bean;
+            }
+        };
+    }
+}
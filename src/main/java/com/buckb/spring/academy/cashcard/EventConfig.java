@@ -0,0 +1,71 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.util.concurrent.Executor;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Card events are stored in the JDBC event publication registry in the publishing transaction and delivered
+ * after commit on an executor of their own (bounded by {@code cashcard.events.executor.*}), so slow deliveries
+ * never hold up the application task executor that serves asynchronous requests, and the other way round.
+ * <p>
+ * The executor is not a bean: an {@link Executor} bean would make Spring Boot back off from the application
+ * task executor.
+ */
+@Configuration
+@EnableAsync
+@EnableScheduling
+@EnableConfigurationProperties({ CashCardEventProperties.class, EventExecutorProperties.class })
+public class EventConfig implements AsyncConfigurer, DisposableBean {
+
+    static final String THREAD_NAME_PREFIX = "cashcard-events-";
+
+    private final EventExecutorProperties properties;
+    private Executor executor;
+
+    public EventConfig(EventExecutorProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public synchronized Executor getAsyncExecutor() {
+        if (this.executor == null) {
+            this.executor = this.properties.virtualThreads() ? virtualThreadExecutor() : threadPoolExecutor();
+        }
+        return this.executor;
+    }
+
+    private Executor virtualThreadExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(THREAD_NAME_PREFIX);
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(this.properties.concurrency());
+        executor.setRejectTasksWhenLimitReached(true);
+        return executor;
+    }
+
+    private Executor threadPoolExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(THREAD_NAME_PREFIX);
+        executor.setCorePoolSize(this.properties.concurrency());
+        executor.setMaxPoolSize(this.properties.concurrency());
+        executor.setQueueCapacity(this.properties.queueCapacity());
+        executor.initialize();
+        return executor;
+    }
+
+    @Override
+    public synchronized void destroy() throws Exception {
+        if (this.executor instanceof DisposableBean pool) {
+            pool.destroy();
+        } else if (this.executor instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+}
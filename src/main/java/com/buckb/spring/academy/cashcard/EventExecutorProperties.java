@@ -0,0 +1,20 @@
+package com.buckb.spring.academy.cashcard;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for the executor that delivers card events, kept apart from the application task executor that
+ * Spring MVC uses for asynchronous requests such as exports.
+ *
+ * @param concurrency maximum number of deliveries running at once
+ * @param queueCapacity deliveries waiting for a thread before further ones are rejected and left to the retry
+ *        job; unused with virtual threads, which never queue
+ * @param virtualThreads whether each delivery runs on its own virtual thread instead of a pooled one
+ */
+@ConfigurationProperties("cashcard.events.executor")
+public record EventExecutorProperties(
+        @DefaultValue("4") int concurrency,
+        @DefaultValue("1000") int queueCapacity,
+        @DefaultValue("false") boolean virtualThreads) {
+}
@@ -0,0 +1,36 @@
+package com.buckb.spring.academy.cashcard;
+
+import org.springframework.modulith.events.CompletedEventPublications;
+import org.springframework.modulith.events.IncompleteEventPublications;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Retries publications whose listener failed or never ran (e.g. the executor rejected it under load) and
+ * purges completed ones so the registry table stays small.
+ */
+@Component
+public class EventPublicationMaintenance {
+
+    private final IncompleteEventPublications incompletePublications;
+    private final CompletedEventPublications completedPublications;
+    private final CashCardEventProperties properties;
+
+    public EventPublicationMaintenance(IncompleteEventPublications incompletePublications,
+            CompletedEventPublications completedPublications, CashCardEventProperties properties) {
+        this.incompletePublications = incompletePublications;
+        this.completedPublications = completedPublications;
+        this.properties = properties;
+    }
+
+    @Scheduled(initialDelayString = "${cashcard.events.retry-interval:1m}",
+            fixedDelayString = "${cashcard.events.retry-interval:1m}")
+    public void resubmitIncompletePublications() {
+        this.incompletePublications.resubmitIncompletePublicationsOlderThan(this.properties.retryAfter());
+    }
+
+    @Scheduled(fixedDelayString = "${cashcard.events.purge-interval:1h}")
+    public void purgeCompletedPublications() {
+        this.completedPublications.deletePublicationsOlderThan(this.properties.retention());
+    }
+}
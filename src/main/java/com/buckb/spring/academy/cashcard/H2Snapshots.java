@@ -0,0 +1,145 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import javax.sql.DataSource;
+
+import org.h2.tools.Restore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Takes online snapshots of the file-backed H2 database and restores them on startup.
+ * <p>
+ * {@code BACKUP TO} copies the database file into a zip without blocking writers; the MVStore's
+ * copy-on-write pages keep the copy transactionally consistent. Restoring unpacks that file again, so a new
+ * node opens the restored database directly instead of replaying millions of rows.
+ */
+public class H2Snapshots {
+
+    private static final Logger log = LoggerFactory.getLogger(H2Snapshots.class);
+
+    private static final String FILE_URL_PREFIX = "jdbc:h2:file:";
+    private static final String SNAPSHOT_SUFFIX = ".zip";
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmssSSS'Z'");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StorageProperties properties;
+    private final Clock clock;
+
+    public H2Snapshots(DataSource dataSource, StorageProperties properties) {
+        this(dataSource, properties, Clock.systemUTC());
+    }
+
+    H2Snapshots(DataSource dataSource, StorageProperties properties, Clock clock) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.properties = properties;
+        this.clock = clock;
+    }
+
+    /**
+     * Writes a new snapshot and deletes the ones beyond {@code retainedSnapshots}.
+     *
+     * @return the snapshot archive
+     */
+    public synchronized Path snapshot() {
+        try {
+            Files.createDirectories(this.properties.snapshotDirectory());
+            Path snapshot = this.properties.snapshotDirectory().resolve("cashcardsdb-"
+                    + TIMESTAMP.format(this.clock.instant().atZone(this.clock.getZone())) + SNAPSHOT_SUFFIX);
+            this.jdbcTemplate.execute("BACKUP TO '" + snapshot.toAbsolutePath().toString().replace("'", "''") + "'");
+
+            List<Path> snapshots = list();
+            for (Path old : snapshots.subList(Math.min(this.properties.retainedSnapshots(), snapshots.size()),
+                    snapshots.size())) {
+                Files.deleteIfExists(old);
+            }
+            return snapshot;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Snapshot run in the background every {@code snapshotInterval}, see {@link StorageConfig}.
+     */
+    public void scheduledSnapshot() {
+        log.info("Wrote database snapshot {}", snapshot());
+    }
+
+    /**
+     * @return the snapshot archives, newest first
+     */
+    public List<Path> list() {
+        return list(this.properties.snapshotDirectory());
+    }
+
+    private static List<Path> list(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            // The timestamp in the name sorts chronologically
+            return files.filter(file -> file.getFileName().toString().endsWith(SNAPSHOT_SUFFIX))
+                    .sorted(Comparator.comparing(Path::getFileName).reversed())
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Unpacks the configured snapshot when the database file does not exist yet. Must run before the
+     * connection pool opens the database.
+     *
+     * @return whether a snapshot was restored
+     */
+    static boolean restoreIfMissing(String url, StorageProperties properties) {
+        String restoreFrom = properties.restoreFrom();
+        if (restoreFrom == null || restoreFrom.isBlank() || url == null || !url.startsWith(FILE_URL_PREFIX)) {
+            return false;
+        }
+        Path database = databasePath(url);
+        if (Files.exists(Path.of(database + ".mv.db"))) {
+            return false;
+        }
+        Optional<Path> snapshot = restoreFrom.equals("latest")
+                ? list(properties.snapshotDirectory()).stream().findFirst()
+                : Optional.of(Path.of(restoreFrom));
+        if (snapshot.isEmpty()) {
+            return false;
+        }
+
+        Path directory = database.toAbsolutePath().getParent();
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Restore.execute(snapshot.get().toString(), directory.toString(), database.getFileName().toString());
+        log.info("Restored database {} from snapshot {}", database, snapshot.get());
+        return true;
+    }
+
+    private static Path databasePath(String url) {
+        String path = url.substring(FILE_URL_PREFIX.length());
+        int settings = path.indexOf(';');
+        if (settings >= 0) {
+            path = path.substring(0, settings);
+        }
+        if (path.startsWith("~")) {
+            path = System.getProperty("user.home") + path.substring(1);
+        }
+        return Path.of(path);
+    }
+}
@@ -0,0 +1,20 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for replaying responses to requests sent again with the same {@code Idempotency-Key}.
+ *
+ * @param ttl how long a key is remembered; a key reused after that starts a new request
+ * @param maxSize maximum number of responses kept in memory, the table keeps the rest until they expire
+ * @param stripes number of independently locked segments the in-memory entries are spread over
+ */
+@ConfigurationProperties("cashcard.idempotency")
+public record IdempotencyProperties(
+        @DefaultValue("24h") Duration ttl,
+        @DefaultValue("100000") int maxSize,
+        @DefaultValue("16") int stripes) {
+}
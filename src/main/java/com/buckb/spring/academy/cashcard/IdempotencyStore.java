@@ -0,0 +1,219 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Remembers the response to each request made with an {@code Idempotency-Key}, per owner, so retries get the
+ * original response back instead of repeating the write.
+ * <p>
+ * Keys are claimed by inserting them into {@code idempotency_key} in the transaction of the write, and the
+ * response is stored in that same transaction. A concurrent retry therefore waits on the key's row and then
+ * sees the committed response, or gets a {@link KeyInUseException} if that takes longer than the database's
+ * lock timeout; a rolled back write releases its key. Committed responses are also kept in
+ * a bounded in-memory map, split into independently locked stripes, so most retries never reach the database.
+ */
+@Component
+public class IdempotencyStore {
+
+    private static final String DELETE_EXPIRED_KEY_SQL = """
+            DELETE FROM idempotency_key
+            WHERE owner = :owner AND idempotency_key = :key AND created_at < :cutoff
+            """;
+    private static final String INSERT_SQL = """
+            INSERT INTO idempotency_key (owner, idempotency_key, request_hash, created_at)
+            VALUES (:owner, :key, :requestHash, :createdAt)
+            """;
+    private static final String SELECT_SQL = """
+            SELECT request_hash, status, card_id, card_amount, card_version FROM idempotency_key
+            WHERE owner = :owner AND idempotency_key = :key
+            """;
+    private static final String UPDATE_SQL = """
+            UPDATE idempotency_key SET status = :status, card_id = :cardId, card_amount = :cardAmount,
+                card_version = :cardVersion
+            WHERE owner = :owner AND idempotency_key = :key
+            """;
+    private static final String DELETE_EXPIRED_SQL = "DELETE FROM idempotency_key WHERE created_at < :cutoff";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final Duration ttl;
+    private final Clock clock;
+    private final Map<String, Entry>[] stripes;
+
+    @Autowired
+    public IdempotencyStore(NamedParameterJdbcTemplate jdbcTemplate, IdempotencyProperties properties) {
+        this(jdbcTemplate, properties, Clock.systemUTC());
+    }
+
+    @SuppressWarnings("unchecked")
+    IdempotencyStore(NamedParameterJdbcTemplate jdbcTemplate, IdempotencyProperties properties, Clock clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ttl = properties.ttl();
+        this.clock = clock;
+
+        int maxSizePerStripe = Math.max(1, properties.maxSize() / properties.stripes());
+        this.stripes = new Map[properties.stripes()];
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                    return size() > maxSizePerStripe;
+                }
+            };
+        }
+    }
+
+    /**
+     * A fingerprint of a request, so a key reused for a different request can be told apart from a retry.
+     * Amounts are compared by value, so {@code 55.5} and {@code 55.50} are the same request.
+     */
+    static String fingerprint(Object... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Object part : parts) {
+                String value = part instanceof BigDecimal amount ? amount.stripTrailingZeros().toPlainString()
+                        : String.valueOf(part);
+                digest.update(value.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Claims {@code key} for a new request, in the current transaction.
+     *
+     * @return the response to an earlier request made with the key, or empty if the key was claimed and the
+     *         caller must go on and {@link #complete} it
+     * @throws KeyInUseException if a request with the same key is still running after the lock timeout
+     */
+    public Optional<IdempotentResponse> claim(String owner, String key, String requestHash) {
+        IdempotentResponse remembered = remembered(owner, key);
+        if (remembered != null) {
+            return Optional.of(remembered);
+        }
+
+        Instant now = this.clock.instant();
+        MapSqlParameterSource parameters = new MapSqlParameterSource("owner", owner)
+                .addValue("key", key)
+                .addValue("requestHash", requestHash)
+                .addValue("createdAt", Timestamp.from(now))
+                .addValue("cutoff", Timestamp.from(now.minus(this.ttl)));
+        try {
+            this.jdbcTemplate.update(DELETE_EXPIRED_KEY_SQL, parameters);
+            this.jdbcTemplate.update(INSERT_SQL, parameters);
+            return Optional.empty();
+        } catch (PessimisticLockingFailureException | QueryTimeoutException e) {
+            // The request holding the key did not finish within the database's lock timeout, which H2 reports
+            // as a timeout
+            throw new KeyInUseException(key, e);
+        } catch (DuplicateKeyException e) {
+            // Committed by an earlier request, possibly one we just waited for
+            List<IdempotentResponse> stored = this.jdbcTemplate.query(SELECT_SQL, parameters,
+                    (rs, rowNum) -> new IdempotentResponse(rs.getString("request_hash"), rs.getInt("status"),
+                            rs.getObject("card_id") == null ? null
+                                    : new CashCard(rs.getLong("card_id"), rs.getBigDecimal("card_amount"), owner,
+                                            rs.getLong("card_version"))));
+            if (stored.isEmpty()) {
+                throw e;
+            }
+            remember(owner, key, stored.get(0));
+            return Optional.of(stored.get(0));
+        }
+    }
+
+    /**
+     * Stores the response to the request that claimed {@code key}, in the transaction that claimed it.
+     */
+    public void complete(String owner, String key, IdempotentResponse response) {
+        CashCard card = response.card();
+        this.jdbcTemplate.update(UPDATE_SQL, new MapSqlParameterSource("owner", owner)
+                .addValue("key", key)
+                .addValue("status", response.status())
+                .addValue("cardId", card == null ? null : card.id())
+                .addValue("cardAmount", card == null ? null : card.amount())
+                .addValue("cardVersion", card == null ? null : card.version()));
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remember(owner, key, response);
+                }
+            });
+        } else {
+            remember(owner, key, response);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cashcard.idempotency.purge-interval:10m}")
+    public void purgeExpired() {
+        this.jdbcTemplate.update(DELETE_EXPIRED_SQL,
+                new MapSqlParameterSource("cutoff", Timestamp.from(this.clock.instant().minus(this.ttl))));
+    }
+
+    private IdempotentResponse remembered(String owner, String key) {
+        String id = owner + ':' + key;
+        Map<String, Entry> stripe = stripe(id);
+        synchronized (stripe) {
+            Entry entry = stripe.get(id);
+            if (entry == null) {
+                return null;
+            }
+            if (!this.clock.instant().isBefore(entry.expiresAt())) {
+                stripe.remove(id);
+                return null;
+            }
+            return entry.response();
+        }
+    }
+
+    private void remember(String owner, String key, IdempotentResponse response) {
+        String id = owner + ':' + key;
+        Map<String, Entry> stripe = stripe(id);
+        synchronized (stripe) {
+            stripe.put(id, new Entry(response, this.clock.instant().plus(this.ttl)));
+        }
+    }
+
+    private Map<String, Entry> stripe(String id) {
+        return this.stripes[Math.floorMod(id.hashCode(), this.stripes.length)];
+    }
+
+    private record Entry(IdempotentResponse response, Instant expiresAt) {
+    }
+
+    /**
+     * Thrown when a key is still claimed by a request in progress; the client should retry later.
+     */
+    public static class KeyInUseException extends RuntimeException {
+
+        KeyInUseException(String key, Throwable cause) {
+            super("Idempotency key " + key + " is in use by a request in progress", cause);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.buckb.spring.academy.cashcard;
+
+/**
+ * The outcome of a request made with an {@code Idempotency-Key}, as replayed to retries of it.
+ *
+ * @param requestHash fingerprint of the request that used the key, see {@link IdempotencyStore#fingerprint}
+ * @param status the HTTP status that was returned
+ * @param card the card the response referred to, if any
+ */
+public record IdempotentResponse(String requestHash, int status, CashCard card) {
+}
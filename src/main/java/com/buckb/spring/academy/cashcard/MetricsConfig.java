@@ -0,0 +1,35 @@
+package com.buckb.spring.academy.cashcard;
+
+import javax.sql.DataSource;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+/**
+ * Registers the meters of the infrastructure wrappers that are optional or hidden behind an interface type.
+ * Controller, repository and connection pool timings come from Spring Boot's own instrumentation
+ * ({@code http.server.requests}, {@code spring.data.repository.invocations}, {@code hikaricp.connections.*}).
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    MeterBinder cashCardInfrastructureMetrics(AuthenticationProvider authenticationProvider,
+            UserDetailsService userDetailsService, DataSource dataSource) {
+        return registry -> {
+            if (authenticationProvider instanceof MeterBinder binder) {
+                binder.bindTo(registry);
+            }
+            if (userDetailsService instanceof MeterBinder binder) {
+                binder.bindTo(registry);
+            }
+            if (dataSource instanceof MeterBinder binder) {
+                binder.bindTo(registry);
+            }
+        };
+    }
+}
@@ -0,0 +1,57 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Token bucket per owner, implemented as the generic cell rate algorithm: each owner only has a
+ * "theoretical arrival time" that a request pushes forward by one emission interval, updated with a
+ * compare-and-set loop instead of a lock.
+ */
+public class OwnerRateLimiter {
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final LongSupplier nanoTime;
+    private final Cache<String, AtomicLong> arrivals;
+
+    public OwnerRateLimiter(RateLimitProperties properties) {
+        this(properties, System::nanoTime);
+    }
+
+    OwnerRateLimiter(RateLimitProperties properties, LongSupplier nanoTime) {
+        this.emissionIntervalNanos = (long) (1_000_000_000L / properties.requestsPerSecond());
+        this.burstToleranceNanos = this.emissionIntervalNanos * properties.burst();
+        this.nanoTime = nanoTime;
+        this.arrivals = Caffeine.newBuilder()
+                .maximumSize(properties.maxOwners())
+                // After a full burst interval of inactivity the bucket is full again, so the entry can go
+                .expireAfterAccess(Duration.ofNanos(this.burstToleranceNanos))
+                .build();
+    }
+
+    /**
+     * Takes a token for the owner if one is available.
+     *
+     * @return {@link Duration#ZERO} if the request may proceed, otherwise how long until it would
+     */
+    public Duration tryAcquire(String owner) {
+        long now = this.nanoTime.getAsLong();
+        AtomicLong arrival = this.arrivals.get(owner, key -> new AtomicLong(now));
+        while (true) {
+            long current = arrival.get();
+            long next = Math.max(current, now) + this.emissionIntervalNanos;
+            long allowedAt = next - this.burstToleranceNanos;
+            if (allowedAt > now) {
+                return Duration.ofNanos(allowedAt - now);
+            }
+            if (arrival.compareAndSet(current, next)) {
+                return Duration.ZERO;
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.buckb.spring.academy.cashcard;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Answers {@code 429 Too Many Requests} with {@code Retry-After} once an authenticated owner exceeds their
+ * rate on {@code /cashcards}. Runs after authorization, so anonymous and forbidden requests never use up
+ * an owner's tokens.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final OwnerRateLimiter limiter;
+
+    public RateLimitFilter(OwnerRateLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(request.getContextPath() + "/cashcards");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()) {
+            Duration retryAfter = this.limiter.tryAcquire(authentication.getName());
+            if (!retryAfter.isZero()) {
+                // Retry-After is in whole seconds; round up so a client that honours it is let through
+                long seconds = Math.max(1, (retryAfter.toMillis() + 999) / 1000);
+                response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+                response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+                return;
+            }
+        }
+        chain.doFilter(request, response);
+    }
+}
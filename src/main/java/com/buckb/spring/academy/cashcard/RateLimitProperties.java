@@ -0,0 +1,21 @@
+package com.buckb.spring.academy.cashcard;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for the per-owner limit on {@code /cashcards} requests.
+ *
+ * @param enabled whether requests are limited at all
+ * @param requestsPerSecond sustained rate each owner may send
+ * @param burst how many requests an idle owner may send at once
+ * @param maxOwners how many owners are tracked; the least recently seen are forgotten (and start with a full
+ * burst again)
+ */
+@ConfigurationProperties("cashcard.rate-limit")
+public record RateLimitProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("50") double requestsPerSecond,
+        @DefaultValue("100") int burst,
+        @DefaultValue("100000") long maxOwners) {
+}
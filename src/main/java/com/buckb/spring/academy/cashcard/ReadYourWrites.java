@@ -0,0 +1,51 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.time.Duration;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+/**
+ * Remembers which principals recently committed a write, so that their own reads can be kept on the primary
+ * until the replicas have caught up. Transactions without an authenticated principal, such as event
+ * listeners and scheduled jobs, are not tracked.
+ */
+public class ReadYourWrites implements TransactionExecutionListener {
+
+    private final Cache<String, Boolean> recentWriters;
+
+    public ReadYourWrites(Duration window, long maxWriters) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(maxWriters)
+                .build();
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        if (commitFailure == null && transaction.isNewTransaction() && !transaction.isReadOnly()) {
+            String principal = currentPrincipal();
+            if (principal != null) {
+                this.recentWriters.put(principal, Boolean.TRUE);
+            }
+        }
+    }
+
+    /**
+     * Whether the principal of the current thread committed a write within the window.
+     */
+    public boolean isCurrentPrincipalSticky() {
+        String principal = currentPrincipal();
+        return principal != null && this.recentWriters.getIfPresent(principal) != null;
+    }
+
+    private static String currentPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null || !authentication.isAuthenticated() ? null : authentication.getName();
+    }
+}
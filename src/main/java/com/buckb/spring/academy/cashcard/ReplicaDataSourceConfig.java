@@ -0,0 +1,70 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * Replaces the auto-configured pool with a primary pool and one pool per read replica when
+ * {@code cashcard.datasource.replica.urls} is set.
+ */
+@Configuration
+@ConditionalOnProperty(name = "cashcard.datasource.replica.urls")
+@EnableConfigurationProperties(ReplicaProperties.class)
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    ReadYourWrites readYourWrites(ReplicaProperties properties) {
+        return new ReadYourWrites(properties.readYourWrites(), properties.maxWriters());
+    }
+
+    @Bean
+    ReplicaRoutingDataSource replicaRoutingDataSource(DataSourceProperties dataSourceProperties,
+            ReplicaProperties properties, ReadYourWrites readYourWrites, Environment environment) {
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setPoolName("primary");
+
+        List<DataSource> replicas = new ArrayList<>();
+        for (String url : properties.urls()) {
+            HikariDataSource replica = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(dataSourceProperties.determineDriverClassName())
+                    .url(url)
+                    .username(properties.username() != null ? properties.username()
+                            : dataSourceProperties.determineUsername())
+                    .password(properties.password() != null ? properties.password()
+                            : dataSourceProperties.determinePassword())
+                    .build();
+            replica.setPoolName("replica-" + replicas.size());
+            replica.setMaximumPoolSize(properties.maxPoolSize());
+            replica.setReadOnly(true);
+            replicas.add(replica);
+        }
+        return new ReplicaRoutingDataSource(primary, replicas, readYourWrites);
+    }
+
+    @Bean
+    @Primary
+    DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        // Connects on the first statement, once the transaction's read-only flag is set
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+}
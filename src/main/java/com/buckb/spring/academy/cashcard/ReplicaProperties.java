@@ -0,0 +1,28 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Read replicas that serve read-only transactions; writes keep going to {@code spring.datasource}.
+ *
+ * @param urls JDBC URLs of the replicas, used in turn
+ * @param username replica user, or {@code null} for the primary's
+ * @param password replica password, or {@code null} for the primary's
+ * @param maxPoolSize maximum number of connections per replica
+ * @param readYourWrites how long a principal's reads stay on the primary after it committed a write, which
+ *        should cover the replication lag
+ * @param maxWriters maximum number of principals tracked for read-your-writes
+ */
+@ConfigurationProperties("cashcard.datasource.replica")
+public record ReplicaProperties(
+        List<String> urls,
+        String username,
+        String password,
+        @DefaultValue("10") int maxPoolSize,
+        @DefaultValue("5s") Duration readYourWrites,
+        @DefaultValue("100000") long maxWriters) {
+}
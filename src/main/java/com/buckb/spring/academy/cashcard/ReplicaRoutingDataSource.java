@@ -0,0 +1,64 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Hands out replica connections, in turn, to read-only transactions, and primary connections to everything
+ * else, including reads of a principal that has just written (see {@link ReadYourWrites}).
+ * <p>
+ * The read-only flag of a transaction is only known after the transaction manager asked for its connection,
+ * so this must sit behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    private static final String PRIMARY = "primary";
+
+    private final List<DataSource> pools = new ArrayList<>();
+    private final List<String> replicaKeys = new ArrayList<>();
+    private final ReadYourWrites readYourWrites;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, ReadYourWrites readYourWrites) {
+        this.readYourWrites = readYourWrites;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        this.pools.add(primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            String key = "replica-" + i;
+            targets.put(key, replicas.get(i));
+            this.replicaKeys.add(key);
+            this.pools.add(replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (this.replicaKeys.isEmpty() || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                || this.readYourWrites.isCurrentPrincipalSticky()) {
+            return PRIMARY;
+        }
+        return this.replicaKeys.get(Math.floorMod(this.nextReplica.getAndIncrement(), this.replicaKeys.size()));
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (DataSource pool : this.pools) {
+            if (pool instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
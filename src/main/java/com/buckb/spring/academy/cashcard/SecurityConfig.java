@@ -4,33 +4,51 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 
+import javax.sql.DataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.HeadersConfigurer.FrameOptionsConfig;
 import org.springframework.security.core.AuthenticationException;
-import org.springframework.security.core.userdetails.User;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
-import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+import org.springframework.security.provisioning.JdbcUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
 
 @Configuration
 @EnableWebSecurity
+@EnableConfigurationProperties({ AuthenticationCacheProperties.class, UserCacheProperties.class,
+        RateLimitProperties.class, UserProvisioningProperties.class })
 public class SecurityConfig {
 
     @Bean
-    SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    SecurityFilterChain filterChain(HttpSecurity http, RateLimitProperties rateLimitProperties) throws Exception {
         // Allow access to H2 console and cashcards endpoints for testing.
         // Permit the H2 console, disable CSRF for the console path, and allow frames from same origin.
         http
                 .authorizeHttpRequests(authorize -> authorize
                         .requestMatchers("/h2-console/**").permitAll()
+                        // Health checks don't carry credentials; Prometheus scrapes with a dedicated user
+                        .requestMatchers("/actuator/health").permitAll()
+                        .requestMatchers("/actuator/prometheus").hasRole("METRICS")
+                        .requestMatchers("/actuator/snapshots/**").hasRole("ADMIN")
                         .requestMatchers("/cashcards/**").hasRole("CARD-OWNER")
                         .anyRequest().authenticated() //Ensures that all other requests not explicitly matched
                 // by the above rules also require the user to be authenticated.
@@ -38,7 +56,9 @@ public class SecurityConfig {
                 // Enable both form login and http basic so you can log in with a form (useful for H2 console)
                 .formLogin(Customizer.withDefaults())
                 .httpBasic(Customizer.withDefaults())
-                .csrf(csrf -> csrf.ignoringRequestMatchers("/h2-console/**", "/cashcards/**"))
+                // The snapshot endpoint is called with HTTP Basic by operators and scripts, not from a browser form
+                .csrf(csrf -> csrf.ignoringRequestMatchers("/h2-console/**", "/cashcards/**",
+                        "/actuator/snapshots/**"))
                 .headers(headers -> headers.frameOptions(FrameOptionsConfig::sameOrigin))
                 // 2. 💡 Configure exception handling to use Basic Authentication for unauthenticated requests
                 .exceptionHandling(exceptionHandling -> exceptionHandling
@@ -55,36 +75,51 @@ public class SecurityConfig {
                                                 authException.getMessage());
                                     }
                                 }));
+        if (rateLimitProperties.enabled()) {
+            // Not a bean: Spring Boot would also register it for every request outside the security chain
+            http.addFilterAfter(new RateLimitFilter(new OwnerRateLimiter(rateLimitProperties)),
+                    AuthorizationFilter.class);
+        }
         return http.build();
     }
 
     @Bean
-    PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    PasswordEncoder passwordEncoder(MeterRegistry meterRegistry) {
+        return new TimedPasswordEncoder(new BCryptPasswordEncoder(), meterRegistry);
     }
 
     @Bean
-    UserDetailsService testOnlyUsers(PasswordEncoder passwordEncoder) {
-        User.UserBuilder users = User.builder();
-        UserDetails sarah = users
-                .username("Sarah1")
-                .password(passwordEncoder.encode("abc123"))
-                .roles("CARD-OWNER")
-                .build();
-
-        UserDetails noCardsUser = users
-                .username("john")
-                .password(passwordEncoder.encode("def456"))
-                .roles("NO-CARDS")
-                .build();
-
-        UserDetails pierre = users
-                .username("Pierre")
-                .password(passwordEncoder.encode("ghi789"))
-                .roles("CARD-OWNER")
-                .build();
+    AuthenticationProvider authenticationProvider(UserDetailsService userDetailsService,
+            PasswordEncoder passwordEncoder, AuthenticationCacheProperties authCacheProperties) {
+        DaoAuthenticationProvider daoProvider = new DaoAuthenticationProvider(userDetailsService);
+        daoProvider.setPasswordEncoder(passwordEncoder);
+        if (!authCacheProperties.enabled()) {
+            return daoProvider;
+        }
+        // Skip the BCrypt check for callers whose credentials were verified recently
+        return new CachingAuthenticationProvider(daoProvider, userDetailsService, authCacheProperties);
+    }
 
-        return new InMemoryUserDetailsManager(sarah, noCardsUser, pierre);
+    @Bean
+    @DependsOnDatabaseInitialization
+    CachingUserDetailsManager userDetailsService(DataSource dataSource, UserCacheProperties userCacheProperties,
+            ResourceLoader resourceLoader, UserProvisioningProperties userProvisioningProperties)
+            throws IOException {
+        UserImporter importer = new UserImporter(new JdbcTemplate(dataSource));
+        if (!userProvisioningProperties.importLocation().isEmpty()) {
+            try (Reader csv = new InputStreamReader(
+                    resourceLoader.getResource(userProvisioningProperties.importLocation()).getInputStream(),
+                    StandardCharsets.UTF_8)) {
+                importer.importUsers(csv);
+            }
+        }
+        userProvisioningProperties.accounts().forEach((username, account) -> {
+            if (account.password() == null || account.password().isBlank()) {
+                throw new IllegalStateException("No password configured for account " + username);
+            }
+            importer.importUser(username, account.password(), account.authorities());
+        });
+        return new CachingUserDetailsManager(new JdbcUserDetailsManager(dataSource), userCacheProperties);
     }
 
 }
@@ -0,0 +1,31 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+
+/**
+ * {@code GET /actuator/snapshots} lists the database snapshots, {@code POST} takes one now.
+ */
+@Endpoint(id = "snapshots")
+public class SnapshotEndpoint {
+
+    private final H2Snapshots snapshots;
+
+    public SnapshotEndpoint(H2Snapshots snapshots) {
+        this.snapshots = snapshots;
+    }
+
+    @ReadOperation
+    public List<String> snapshots() {
+        return this.snapshots.list().stream().map(Path::toString).toList();
+    }
+
+    @WriteOperation
+    public String snapshot() {
+        return this.snapshots.snapshot().toString();
+    }
+}
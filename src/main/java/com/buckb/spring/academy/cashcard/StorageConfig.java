@@ -0,0 +1,42 @@
+package com.buckb.spring.academy.cashcard;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.FixedDelayTask;
+
+@Configuration
+@Profile("durable")
+@EnableConfigurationProperties(StorageProperties.class)
+public class StorageConfig {
+
+    @Bean
+    static BeanFactoryPostProcessor snapshotRestore(Environment environment) {
+        // Runs before any bean is created, so the pool opens the restored file
+        return beanFactory -> H2Snapshots.restoreIfMissing(environment.getProperty("spring.datasource.url"),
+                Binder.get(environment).bindOrCreate("cashcard.storage", StorageProperties.class));
+    }
+
+    @Bean
+    H2Snapshots h2Snapshots(DataSource dataSource, StorageProperties properties) {
+        return new H2Snapshots(dataSource, properties);
+    }
+
+    @Bean
+    SchedulingConfigurer snapshotSchedule(H2Snapshots snapshots, StorageProperties properties) {
+        return registrar -> registrar.addFixedDelayTask(new FixedDelayTask(snapshots::scheduledSnapshot,
+                properties.snapshotInterval(), properties.snapshotInterval()));
+    }
+
+    @Bean
+    SnapshotEndpoint snapshotEndpoint(H2Snapshots snapshots) {
+        return new SnapshotEndpoint(snapshots);
+    }
+}
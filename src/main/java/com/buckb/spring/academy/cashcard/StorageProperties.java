@@ -0,0 +1,24 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for snapshots of the file-backed database used by the {@code durable} profile.
+ *
+ * @param snapshotDirectory where snapshot archives are written
+ * @param snapshotInterval how often a snapshot is taken in the background
+ * @param retainedSnapshots how many of the newest snapshots are kept
+ * @param restoreFrom snapshot archive to restore when the database file does not exist yet, or {@code latest}
+ * for the newest archive in {@code snapshotDirectory}; nothing is restored when empty
+ */
+@ConfigurationProperties("cashcard.storage")
+public record StorageProperties(
+        @DefaultValue("./data/snapshots") Path snapshotDirectory,
+        @DefaultValue("6h") Duration snapshotInterval,
+        @DefaultValue("3") int retainedSnapshots,
+        String restoreFrom) {
+}
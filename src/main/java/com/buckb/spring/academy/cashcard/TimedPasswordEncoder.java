@@ -0,0 +1,53 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Records how long password checks take, tagged by whether the password matched.
+ * <p>
+ * BCrypt is deliberately slow, so this is where an unauthenticated-looking latency spike usually comes from.
+ */
+public class TimedPasswordEncoder implements PasswordEncoder {
+
+    static final String MATCHES_TIMER = "cashcard.password.matches";
+
+    private final PasswordEncoder delegate;
+    private final Timer matched;
+    private final Timer mismatched;
+
+    public TimedPasswordEncoder(PasswordEncoder delegate, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.matched = timer(registry, "match");
+        this.mismatched = timer(registry, "mismatch");
+    }
+
+    private static Timer timer(MeterRegistry registry, String outcome) {
+        return Timer.builder(MATCHES_TIMER)
+                .description("Time spent verifying a password against its stored hash")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return this.delegate.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        long start = System.nanoTime();
+        boolean matches = this.delegate.matches(rawPassword, encodedPassword);
+        (matches ? this.matched : this.mismatched).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return matches;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return this.delegate.upgradeEncoding(encodedPassword);
+    }
+}
@@ -0,0 +1,9 @@
+package com.buckb.spring.academy.cashcard;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(TombstoneProperties.class)
+public class TombstoneConfig {
+}
@@ -0,0 +1,21 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for moving deleted cards out of {@code cash_card}.
+ *
+ * @param retention how long a deleted card stays in {@code cash_card} before it is moved out
+ * @param chunkSize number of deleted cards moved per transaction
+ * @param archive copy deleted cards to {@code cash_card_archive} before removing them, rather than only
+ *        removing them
+ */
+@ConfigurationProperties("cashcard.tombstones")
+public record TombstoneProperties(
+        @DefaultValue("10m") Duration retention,
+        @DefaultValue("1000") int chunkSize,
+        @DefaultValue("true") boolean archive) {
+}
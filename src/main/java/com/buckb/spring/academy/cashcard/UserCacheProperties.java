@@ -0,0 +1,18 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for the cache in front of the JDBC user store.
+ *
+ * @param maxSize maximum number of users kept in memory
+ * @param ttl how long a loaded user is served before it is read from the database again
+ */
+@ConfigurationProperties("cashcard.user-cache")
+public record UserCacheProperties(
+        @DefaultValue("100000") long maxSize,
+        @DefaultValue("5m") Duration ttl) {
+}
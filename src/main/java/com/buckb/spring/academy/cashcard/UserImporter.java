@@ -0,0 +1,87 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Loads users from CSV lines of {@code username,encodedPassword,authority[;authority...]} into the
+ * {@code users} and {@code authorities} tables.
+ * <p>
+ * Passwords must already be encoded, so importing does no hashing. Rows are upserted in JDBC batches
+ * while the file is read, so memory use does not depend on the number of users.
+ */
+public class UserImporter {
+
+    static final int BATCH_SIZE = 1_000;
+
+    private static final String UPSERT_USER_SQL = "MERGE INTO users (username, password, enabled) KEY (username)"
+            + " VALUES (?, ?, TRUE)";
+    private static final String UPSERT_AUTHORITY_SQL = "MERGE INTO authorities (username, authority)"
+            + " KEY (username, authority) VALUES (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserImporter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @param csv a header line followed by one user per line
+     * @return the number of users imported
+     */
+    public int importUsers(Reader csv) throws IOException {
+        BufferedReader reader = new BufferedReader(csv);
+        reader.readLine();
+
+        int imported = 0;
+        List<Object[]> users = new ArrayList<>(BATCH_SIZE);
+        List<Object[]> authorities = new ArrayList<>(BATCH_SIZE);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            String[] fields = line.split(",", 3);
+            if (fields.length < 3) {
+                throw new IllegalArgumentException("Expected username,password,authorities but got: " + line);
+            }
+            users.add(new Object[] { fields[0].trim(), fields[1].trim() });
+            for (String authority : fields[2].split(";")) {
+                authorities.add(new Object[] { fields[0].trim(), authority.trim() });
+            }
+            imported++;
+            if (users.size() == BATCH_SIZE) {
+                flush(users, authorities);
+            }
+        }
+        flush(users, authorities);
+        return imported;
+    }
+
+    /**
+     * Upserts a single user, e.g. one provisioned from configuration rather than a file.
+     */
+    public void importUser(String username, String encodedPassword, List<String> authorities) {
+        List<Object[]> users = new ArrayList<>(1);
+        users.add(new Object[] { username, encodedPassword });
+        List<Object[]> userAuthorities = new ArrayList<>(authorities.size());
+        for (String authority : authorities) {
+            userAuthorities.add(new Object[] { username, authority });
+        }
+        flush(users, userAuthorities);
+    }
+
+    private void flush(List<Object[]> users, List<Object[]> authorities) {
+        if (!users.isEmpty()) {
+            this.jdbcTemplate.batchUpdate(UPSERT_USER_SQL, users);
+            this.jdbcTemplate.batchUpdate(UPSERT_AUTHORITY_SQL, authorities);
+        }
+        users.clear();
+        authorities.clear();
+    }
+}
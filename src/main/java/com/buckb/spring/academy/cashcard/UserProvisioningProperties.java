@@ -0,0 +1,28 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Where the JDBC user store gets its users at startup.
+ *
+ * @param importLocation CSV file of users with pre-encoded passwords, see {@link UserImporter}; empty for none
+ * @param accounts operator and tooling accounts by username, such as the Prometheus scraper, provisioned by the
+ *        deployment (e.g. {@code CASHCARD_USERS_ACCOUNTS_PROMETHEUS_PASSWORD}) so their credentials are not part of
+ *        the application
+ */
+@ConfigurationProperties("cashcard.users")
+public record UserProvisioningProperties(
+        @DefaultValue("") String importLocation,
+        @DefaultValue Map<String, Account> accounts) {
+
+    /**
+     * @param password the encoded password, e.g. a BCrypt hash
+     * @param authorities the granted authorities, e.g. {@code ROLE_METRICS}
+     */
+    public record Account(String password, List<String> authorities) {
+    }
+}
@@ -0,0 +1,6 @@
+DROP TABLE IF EXISTS cash_card;
+DROP TABLE IF EXISTS cash_card_archive;
+DROP TABLE IF EXISTS cash_card_summary;
+DROP TABLE IF EXISTS idempotency_key;
+DROP TABLE IF EXISTS authorities;
+DROP TABLE IF EXISTS users;
@@ -1,6 +1,50 @@
-DROP TABLE IF EXISTS cash_card;
 CREATE TABLE IF NOT EXISTS cash_card (
     ID BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
     AMOUNT NUMBER NOT NULL DEFAULT 0,
-    OWNER VARCHAR2(255) NOT NULL
-);
\ No newline at end of file
+    OWNER VARCHAR2(255) NOT NULL,
+    VERSION BIGINT NOT NULL DEFAULT 0,
+    DELETED_AT TIMESTAMP WITH TIME ZONE
+);
+-- Databases created before soft deletes lack the column
+ALTER TABLE cash_card ADD COLUMN IF NOT EXISTS DELETED_AT TIMESTAMP WITH TIME ZONE;
+CREATE INDEX IF NOT EXISTS ix_cash_card_owner_id ON cash_card (owner, id);
+CREATE INDEX IF NOT EXISTS ix_cash_card_owner_amount_id ON cash_card (owner, amount, id);
+CREATE TABLE IF NOT EXISTS cash_card_archive (
+    ID BIGINT PRIMARY KEY,
+    AMOUNT NUMBER NOT NULL,
+    OWNER VARCHAR2(255) NOT NULL,
+    VERSION BIGINT NOT NULL,
+    DELETED_AT TIMESTAMP WITH TIME ZONE NOT NULL,
+    ARCHIVED_AT TIMESTAMP WITH TIME ZONE NOT NULL
+);
+CREATE INDEX IF NOT EXISTS ix_cash_card_archive_owner ON cash_card_archive (owner, id);
+CREATE TABLE IF NOT EXISTS cash_card_summary (
+    OWNER VARCHAR2(255) PRIMARY KEY,
+    CARD_COUNT BIGINT NOT NULL DEFAULT 0,
+    TOTAL_AMOUNT NUMBER NOT NULL DEFAULT 0,
+    MIN_AMOUNT NUMBER,
+    MAX_AMOUNT NUMBER
+);
+CREATE TABLE IF NOT EXISTS idempotency_key (
+    OWNER VARCHAR2(255) NOT NULL,
+    IDEMPOTENCY_KEY VARCHAR2(255) NOT NULL,
+    REQUEST_HASH CHAR(64) NOT NULL,
+    STATUS INT,
+    CARD_ID BIGINT,
+    CARD_AMOUNT NUMBER,
+    CARD_VERSION BIGINT,
+    CREATED_AT TIMESTAMP WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (owner, idempotency_key)
+);
+CREATE INDEX IF NOT EXISTS ix_idempotency_key_created_at ON idempotency_key (created_at);
+CREATE TABLE IF NOT EXISTS users (
+    USERNAME VARCHAR(50) NOT NULL PRIMARY KEY,
+    PASSWORD VARCHAR(500) NOT NULL,
+    ENABLED BOOLEAN NOT NULL
+);
+CREATE TABLE IF NOT EXISTS authorities (
+    USERNAME VARCHAR(50) NOT NULL,
+    AUTHORITY VARCHAR(50) NOT NULL,
+    CONSTRAINT fk_authorities_users FOREIGN KEY (username) REFERENCES users (username)
+);
+CREATE UNIQUE INDEX IF NOT EXISTS ix_auth_username ON authorities (username, authority);
\ No newline at end of file
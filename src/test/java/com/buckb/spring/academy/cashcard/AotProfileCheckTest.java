@@ -0,0 +1,59 @@
+package com.buckb.spring.academy.cashcard;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.AotDetector;
+import org.springframework.boot.SpringApplication;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.assertj.core.api.Assertions.assertThatNoException;
+
+// processResources fills in the profiles processAot ran with, faststart unless -Paot.profiles says otherwise
+class AotProfileCheckTest {
+
+    private final AotProfileCheck check = new AotProfileCheck();
+
+    @BeforeEach
+    void enableAot() {
+        System.setProperty(AotDetector.AOT_ENABLED, "true");
+    }
+
+    @AfterEach
+    void disableAot() {
+        System.clearProperty(AotDetector.AOT_ENABLED);
+    }
+
+    private MockEnvironment environment(String... profiles) {
+        MockEnvironment environment = new MockEnvironment();
+        environment.setActiveProfiles(profiles);
+        return environment;
+    }
+
+    @Test
+    @DisplayName("An AOT launch with the processed profiles should start")
+    void givenProcessedProfiles_whenLaunchingWithAot_thenShouldPass() {
+        assertThatNoException().isThrownBy(() -> this.check.postProcessEnvironment(environment("faststart"),
+                new SpringApplication()));
+    }
+
+    @Test
+    @DisplayName("An AOT launch with another profile should fail instead of dropping its beans")
+    void givenUnprocessedProfile_whenLaunchingWithAot_thenShouldFail() {
+        assertThatIllegalStateException()
+                .isThrownBy(() -> this.check.postProcessEnvironment(environment("faststart", "durable"),
+                        new SpringApplication()))
+                .withMessageContaining("[durable, faststart]");
+    }
+
+    @Test
+    @DisplayName("Without AOT any profile should start")
+    void givenAotDisabled_whenLaunchingWithOtherProfile_thenShouldPass() {
+        System.clearProperty(AotDetector.AOT_ENABLED);
+
+        assertThatNoException().isThrownBy(() -> this.check.postProcessEnvironment(environment("durable"),
+                new SpringApplication()));
+    }
+}
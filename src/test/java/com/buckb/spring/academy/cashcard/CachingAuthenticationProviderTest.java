@@ -0,0 +1,101 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CachingAuthenticationProviderTest {
+
+    private final PasswordEncoder passwordEncoder = new BCryptPasswordEncoder(4);
+
+    private InMemoryUserDetailsManager users;
+
+    @BeforeEach
+    void setup() {
+        this.users = new InMemoryUserDetailsManager(User.builder()
+                .username("Sarah1")
+                .password(this.passwordEncoder.encode("abc123"))
+                .roles("CARD-OWNER")
+                .build());
+    }
+
+    private CachingAuthenticationProvider provider(Duration ttl) {
+        DaoAuthenticationProvider daoProvider = new DaoAuthenticationProvider(this.users);
+        daoProvider.setPasswordEncoder(this.passwordEncoder);
+        return new CachingAuthenticationProvider(daoProvider, this.users,
+                new AuthenticationCacheProperties(true, 100, ttl));
+    }
+
+    private static Authentication login(String username, String password) {
+        return UsernamePasswordAuthenticationToken.unauthenticated(username, password);
+    }
+
+    @Test
+    @DisplayName("Repeated logins with the same credentials should be served from the cache")
+    void givenVerifiedCredentials_whenAuthenticatingAgain_thenShouldHitCache() {
+        CachingAuthenticationProvider provider = provider(Duration.ofMinutes(5));
+
+        Authentication first = provider.authenticate(login("Sarah1", "abc123"));
+        Authentication second = provider.authenticate(login("Sarah1", "abc123"));
+
+        assertThat(first.isAuthenticated()).isTrue();
+        assertThat(second.isAuthenticated()).isTrue();
+        assertThat(second.getAuthorities()).extracting("authority").containsExactly("ROLE_CARD-OWNER");
+        assertThat(provider.missCount()).isEqualTo(1);
+        assertThat(provider.hitCount()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("A wrong password should be rejected even when the user is cached")
+    void givenCachedUser_whenAuthenticatingWithWrongPassword_thenShouldFail() {
+        CachingAuthenticationProvider provider = provider(Duration.ofMinutes(5));
+        provider.authenticate(login("Sarah1", "abc123"));
+
+        assertThatThrownBy(() -> provider.authenticate(login("Sarah1", "wrongPassword")))
+                .isInstanceOf(BadCredentialsException.class);
+        assertThat(provider.hitCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("Changing the password should evict the cached credential")
+    void givenCachedUser_whenPasswordChanges_thenOldPasswordShouldFail() {
+        CachingAuthenticationProvider provider = provider(Duration.ofMinutes(5));
+        provider.authenticate(login("Sarah1", "abc123"));
+
+        this.users.updateUser(User.builder()
+                .username("Sarah1")
+                .password(this.passwordEncoder.encode("newPassword"))
+                .roles("CARD-OWNER")
+                .build());
+
+        assertThatThrownBy(() -> provider.authenticate(login("Sarah1", "abc123")))
+                .isInstanceOf(BadCredentialsException.class);
+        assertThat(provider.evictionCount()).isEqualTo(1);
+        assertThat(provider.authenticate(login("Sarah1", "newPassword")).isAuthenticated()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Expired entries should be verified with the password encoder again")
+    void givenExpiredEntry_whenAuthenticating_thenShouldMissCache() {
+        CachingAuthenticationProvider provider = provider(Duration.ZERO);
+
+        provider.authenticate(login("Sarah1", "abc123"));
+        provider.authenticate(login("Sarah1", "abc123"));
+
+        assertThat(provider.hitCount()).isZero();
+        assertThat(provider.missCount()).isEqualTo(2);
+    }
+}
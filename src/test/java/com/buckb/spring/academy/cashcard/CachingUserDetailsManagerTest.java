@@ -0,0 +1,83 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CachingUserDetailsManagerTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private CachingUserDetailsManager users;
+
+    @BeforeEach
+    void setup() {
+        InMemoryUserDetailsManager delegate = new InMemoryUserDetailsManager(user("{noop}abc123")) {
+            @Override
+            public UserDetails loadUserByUsername(String username) {
+                loads.incrementAndGet();
+                return super.loadUserByUsername(username);
+            }
+        };
+        this.users = new CachingUserDetailsManager(delegate, new UserCacheProperties(100, Duration.ofMinutes(5)));
+    }
+
+    private static UserDetails user(String password) {
+        return User.builder()
+                .username("Sarah1")
+                .password(password)
+                .roles("CARD-OWNER")
+                .build();
+    }
+
+    @Test
+    @DisplayName("Repeated lookups of the same user should be served from the cache")
+    void givenLoadedUser_whenLoadingAgain_thenShouldNotHitDelegate() {
+        this.users.loadUserByUsername("Sarah1");
+        UserDetails second = this.users.loadUserByUsername("Sarah1");
+
+        assertThat(second.getPassword()).isEqualTo("{noop}abc123");
+        assertThat(second.getAuthorities()).extracting("authority").containsExactly("ROLE_CARD-OWNER");
+        assertThat(this.loads).hasValue(1);
+    }
+
+    @Test
+    @DisplayName("Erasing the credentials of a returned user should not affect the cached one")
+    void givenReturnedUser_whenErasingCredentials_thenCachedUserShouldKeepPassword() {
+        ((CredentialsContainer) this.users.loadUserByUsername("Sarah1")).eraseCredentials();
+
+        assertThat(this.users.loadUserByUsername("Sarah1").getPassword()).isEqualTo("{noop}abc123");
+    }
+
+    @Test
+    @DisplayName("Updating a user should invalidate the cached entry")
+    void givenCachedUser_whenUpdated_thenShouldLoadNewPassword() {
+        this.users.loadUserByUsername("Sarah1");
+
+        this.users.updateUser(user("{noop}newPassword"));
+
+        assertThat(this.users.loadUserByUsername("Sarah1").getPassword()).isEqualTo("{noop}newPassword");
+        assertThat(this.loads).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Unknown usernames should not be cached")
+    void givenUnknownUser_whenLoading_thenShouldThrowEveryTime() {
+        assertThatThrownBy(() -> this.users.loadUserByUsername("nobody"))
+                .isInstanceOf(UsernameNotFoundException.class);
+        assertThatThrownBy(() -> this.users.loadUserByUsername("nobody"))
+                .isInstanceOf(UsernameNotFoundException.class);
+        assertThat(this.loads).hasValue(2);
+    }
+}
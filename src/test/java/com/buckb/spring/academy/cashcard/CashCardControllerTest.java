@@ -2,7 +2,21 @@ package com.buckb.spring.academy.cashcard;
 
 import net.minidev.json.JSONArray;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
 
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -10,15 +24,20 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.modulith.events.CompletedEventPublications;
+import org.springframework.modulith.events.EventPublication;
 import org.springframework.test.annotation.DirtiesContext;
 
 import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.JsonPath;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
 
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 class CashCardControllerTest {
@@ -26,6 +45,9 @@ class CashCardControllerTest {
         @Autowired
         TestRestTemplate restTemplate;
 
+        @Autowired
+        CompletedEventPublications completedEventPublications;
+
         @Test
         @DisplayName("When CashCard exists, FindById should return valid data")
         void givenDataIsSaved_whenFindById_thenShouldReturnCashCard() {
@@ -238,4 +260,452 @@ class CashCardControllerTest {
                                 .getForEntity("/cashcards/{id}", String.class, id);
                 assertThat(findResponse.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
         }
+
+        @Test
+        @DirtiesContext
+        @DisplayName("When applying a batch, it should return a result per operation")
+        void givenMixedOperations_whenBatch_thenShouldReturnResultPerOperation() {
+                List<CashCardBatchOperation> operations = List.of(
+                                new CashCardBatchOperation(CashCardBatchOperation.Type.CREATE, null,
+                                                new BigDecimal("10.00")),
+                                new CashCardBatchOperation(CashCardBatchOperation.Type.UPDATE, 102L,
+                                                new BigDecimal("250.00")),
+                                new CashCardBatchOperation(CashCardBatchOperation.Type.UPDATE, 100L,
+                                                new BigDecimal("0.99")), // Belongs to Pierre
+                                new CashCardBatchOperation(CashCardBatchOperation.Type.DELETE, 103L, null),
+                                new CashCardBatchOperation(CashCardBatchOperation.Type.UPDATE, 105L, null));
+
+                ResponseEntity<String> response = this.restTemplate
+                                .withBasicAuth("Sarah1", "abc123")
+                                .postForEntity("/cashcards/batch", operations, String.class);
+                assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+                DocumentContext context = JsonPath.parse(response.getBody());
+                JSONArray statuses = context.read("$[*].status");
+                assertThat(statuses).containsExactly(201, 204, 404, 204, 400);
+                Number createdId = context.read("$[0].id");
+                assertThat(createdId).isNotNull();
+
+                ResponseEntity<String> updated = this.restTemplate
+                                .withBasicAuth("Sarah1", "abc123")
+                                .getForEntity("/cashcards/102", String.class);
+                Double amount = JsonPath.parse(updated.getBody()).read("$.amount");
+                assertThat(amount).isEqualTo(250.00);
+
+                ResponseEntity<String> deleted = this.restTemplate
+                                .withBasicAuth("Sarah1", "abc123")
+                                .getForEntity("/cashcards/103", String.class);
+                assertThat(deleted.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        }
+
+        @Test
+        @DisplayName("When a batch touches the same CashCard twice, it should return 400_BAD_REQUEST")
+        void givenRepeatedId_whenBatch_thenShouldReturn400BadRequest() {
+                List<CashCardBatchOperation> operations = List.of(
+                                new CashCardBatchOperation(CashCardBatchOperation.Type.DELETE, 103L, null),
+                                new CashCardBatchOperation(CashCardBatchOperation.Type.UPDATE, 103L,
+                                                new BigDecimal("5.00")));
+
+                ResponseEntity<String> response = this.restTemplate
+                                .withBasicAuth("Sarah1", "abc123")
+                                .postForEntity("/cashcards/batch", operations, String.class);
+                assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+
+                ResponseEntity<String> untouched = this.restTemplate
+                                .withBasicAuth("Sarah1", "abc123")
+                                .getForEntity("/cashcards/103", String.class);
+                assertThat(untouched.getStatusCode()).isEqualTo(HttpStatus.OK);
+        }
+
+        @Test
+        @DisplayName("FindAll in keyset mode should walk every page through the next cursor")
+        void givenCashCardsExists_WhenFindAllWithCursor_thenShouldReturnAllPagesInOrder() {
+                List<Object> amounts = new ArrayList<>();
+                String after = "";
+                int pages = 0;
+                while (after != null) {
+                        ResponseEntity<String> response = this.restTemplate
+                                        .withBasicAuth("Sarah1", "abc123")
+                                        .getForEntity("/cashcards?size=2&sort=amount,desc&after={after}",
+                                                        String.class, after);
+                        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+                        JSONArray page = JsonPath.parse(response.getBody()).read("$..amount");
+                        amounts.addAll(page);
+                        after = response.getHeaders().getFirst(CashCardController.NEXT_CURSOR_HEADER);
+                        pages++;
+                }
+
+                assertThat(pages).isEqualTo(3);
+                assertThat(amounts).containsExactly(200.00, 123.45, 75, 37, 9.20);
+        }
+
+        @Test
+        @DisplayName("FindAll with a malformed cursor should return 400_BAD_REQUEST")
+        void givenMalformedCursor_whenFindAll_thenShouldReturn400BadRequest() {
+                ResponseEntity<String> response = this.restTemplate
+                                .withBasicAuth("Sarah1", "abc123")
+                                .getForEntity("/cashcards?after=not-a-cursor", String.class);
+                assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        }
+
+        @Test
+        @DisplayName("FindAll with a cursor missing the amount it sorts by should return 400_BAD_REQUEST")
+        void givenCursorWithoutSortKey_whenFindAll_thenShouldReturn400BadRequest() {
+                String after = Base64.getUrlEncoder().withoutPadding()
+                                .encodeToString("amount|DESC||99".getBytes(StandardCharsets.UTF_8));
+
+                ResponseEntity<String> response = this.restTemplate
+                                .withBasicAuth("Sarah1", "abc123")
+                                .getForEntity("/cashcards?size=2&sort=amount,desc&after={after}", String.class,
+                                                after);
+                assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        }
+
+        @Test
+        @DisplayName("Export should stream one JSON line per CashCard of the owner")
+        void givenCashCardsExists_whenExport_thenShouldReturnNdjsonLines() {
+                ResponseEntity<String> response = this.restTemplate
+                                .withBasicAuth("Sarah1", "abc123")
+                                .getForEntity("/cashcards/export", String.class);
+                assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+                assertThat(response.getHeaders().getContentType().isCompatibleWith(MediaType.APPLICATION_NDJSON))
+                                .isTrue();
+
+                List<Object> ids = response.getBody().lines()
+                                .map(line -> JsonPath.parse(line).read("$.id"))
+                                .toList();
+                assertThat(ids).containsExactly(99, 102, 103, 105, 106);
+        }
+
+        @Test
+        @DisplayName("Export as CSV should return a header and one line per CashCard of the owner")
+        void givenCashCardsExists_whenExportAsCsv_thenShouldReturnCsvLines() {
+                ResponseEntity<String> response = this.restTemplate
+                                .withBasicAuth("Sarah1", "abc123")
+                                .getForEntity("/cashcards/export?format=csv", String.class);
+                assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+                List<String> lines = response.getBody().lines().toList();
+                assertThat(lines).hasSize(6);
+                assertThat(lines.get(0)).isEqualTo("id,amount,owner");
+                assertThat(lines.get(1)).isEqualTo("99,123.45,Sarah1");
+        }
+
+        @Test
+        @DirtiesContext
+        @DisplayName("When updating a CashCard that was already read, FindById should return the new amount")
+        void givenCashCardWasRead_whenUpdate_thenFindByIdShouldReturnUpdatedAmount() {
+                ResponseEntity<String> before = this.restTemplate
+                                .withBasicAuth("Sarah1", "abc123")
+                                .getForEntity("/cashcards/99", String.class);
+                assertThat(before.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+                CashCard toUpdate = new CashCard(null, new BigDecimal("19.99"), "Sarah1");
+                ResponseEntity<Void> updateResponse = this.restTemplate
+                                .withBasicAuth("Sarah1", "abc123")
+                                .exchange("/cashcards/99", HttpMethod.PUT, new HttpEntity<>(toUpdate), Void.class);
+                assertThat(updateResponse.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+
+                ResponseEntity<String> after = this.restTemplate
+                                .withBasicAuth("Sarah1", "abc123")
+                                .getForEntity("/cashcards/99", String.class);
+                Double amount = JsonPath.parse(after.getBody()).read("$.amount");
+                assertThat(amount).isEqualTo(19.99);
+        }
+
+        @Test
+        @DirtiesContext
+        @DisplayName("When adjusting a CashCard, it should return the new balance")
+        void givenExistingCashCard_whenAdjust_thenShouldReturnNewBalance() {
+                ResponseEntity<String> response = this.restTemplate
+                                .withBasicAuth("Sarah1", "abc123")
+                                .postForEntity("/cashcards/99/adjust",
+                                                new CashCardAdjustment(new BigDecimal("10.00"), true), String.class);
+                assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+                Double amount = JsonPath.parse(response.getBody()).read("$.amount");
+                assertThat(amount).isEqualTo(133.45);
+
+                ResponseEntity<String> found = this.restTemplate
+                                .withBasicAuth("Sarah1", "abc123")
+                                .getForEntity("/cashcards/99", String.class);
+                Double foundAmount = JsonPath.parse(found.getBody()).read("$.amount");
+                assertThat(foundAmount).isEqualTo(133.45);
+        }
+
+        @Test
+        @DisplayName("When an adjustment would make the balance negative with the guard on, it should return 409_CONFLICT")
+        void givenNonNegativeGuard_whenAdjustBelowZero_thenShouldReturn409Conflict() {
+                ResponseEntity<String> response = this.restTemplate
+                                .withBasicAuth("Sarah1", "abc123")
+                                .postForEntity("/cashcards/99/adjust",
+                                                new CashCardAdjustment(new BigDecimal("-1000.00"), true), String.class);
+                assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        }
+
+        @Test
+        @DisplayName("When adjusting a CashCard of another owner, it should return 404_NOT_FOUND")
+        void givenCashCardOfAnotherOwner_whenAdjust_thenShouldReturn404NotFound() {
+                ResponseEntity<String> response = this.restTemplate
+                                .withBasicAuth("Sarah1", "abc123")
+                                .postForEntity("/cashcards/100/adjust",
+                                                new CashCardAdjustment(new BigDecimal("1.00"), false), String.class);
+                assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
+        }
+
+        @Test
+        @DisplayName("When the CashCard is unchanged, FindById with If-None-Match should return 304_NOT_MODIFIED")
+        void givenMatchingETag_whenFindById_thenShouldReturn304NotModified() {
+                ResponseEntity<String> first = this.restTemplate
+                                .withBasicAuth("Sarah1", "abc123")
+                                .getForEntity("/cashcards/99", String.class);
+                String eTag = first.getHeaders().getETag();
+                assertThat(eTag).isNotNull();
+
+                HttpHeaders headers = new HttpHeaders();
+                headers.setIfNoneMatch(eTag);
+                ResponseEntity<String> second = this.restTemplate
+                                .withBasicAuth("Sarah1", "abc123")
+                                .exchange("/cashcards/99", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+                assertThat(second.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+                assertThat(second.getBody()).isNull();
+        }
+
+        @Test
+        @DirtiesContext
+        @DisplayName("When updating with a stale If-Match, it should return 412_PRECONDITION_FAILED")
+        void givenStaleETag_whenUpdate_thenShouldReturn412PreconditionFailed() {
+                String eTag = this.restTemplate
+                                .withBasicAuth("Sarah1", "abc123")
+                                .getForEntity("/cashcards/99", String.class)
+                                .getHeaders().getETag();
+
+                HttpHeaders headers = new HttpHeaders();
+                headers.setIfMatch(eTag);
+                CashCard toUpdate = new CashCard(null, new BigDecimal("1.00"), "Sarah1");
+                ResponseEntity<Void> firstUpdate = this.restTemplate
+                                .withBasicAuth("Sarah1", "abc123")
+                                .exchange("/cashcards/99", HttpMethod.PUT, new HttpEntity<>(toUpdate, headers),
+                                                Void.class);
+                assertThat(firstUpdate.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+                assertThat(firstUpdate.getHeaders().getETag()).isNotEqualTo(eTag);
+
+                ResponseEntity<Void> staleUpdate = this.restTemplate
+                                .withBasicAuth("Sarah1", "abc123")
+                                .exchange("/cashcards/99", HttpMethod.PUT, new HttpEntity<>(toUpdate, headers),
+                                                Void.class);
+                assertThat(staleUpdate.getStatusCode()).isEqualTo(HttpStatus.PRECONDITION_FAILED);
+
+                ResponseEntity<Void> staleDelete = this.restTemplate
+                                .withBasicAuth("Sarah1", "abc123")
+                                .exchange("/cashcards/99", HttpMethod.DELETE, new HttpEntity<>(headers), Void.class);
+                assertThat(staleDelete.getStatusCode()).isEqualTo(HttpStatus.PRECONDITION_FAILED);
+        }
+
+        @Test
+        @DirtiesContext
+        @DisplayName("The summary should follow creates and deletes of the owner's cards")
+        void givenCashCardsChange_whenSummary_thenShouldReturnCurrentAggregates() {
+                ResponseEntity<String> before = this.restTemplate
+                                .withBasicAuth("Sarah1", "abc123")
+                                .getForEntity("/cashcards/summary", String.class);
+                assertThat(before.getStatusCode()).isEqualTo(HttpStatus.OK);
+                DocumentContext summary = JsonPath.parse(before.getBody());
+                assertThat(summary.read("$.owner", String.class)).isEqualTo("Sarah1");
+                assertThat(summary.read("$.cardCount", Integer.class)).isEqualTo(5);
+                assertThat(summary.read("$.totalAmount", BigDecimal.class)).isEqualByComparingTo("444.65");
+                assertThat(summary.read("$.minAmount", BigDecimal.class)).isEqualByComparingTo("9.20");
+                assertThat(summary.read("$.maxAmount", BigDecimal.class)).isEqualByComparingTo("200.00");
+
+                this.restTemplate
+                                .withBasicAuth("Sarah1", "abc123")
+                                .postForEntity("/cashcards", new CashCard(null, new BigDecimal("250.00"), null),
+                                                Void.class);
+                this.restTemplate
+                                .withBasicAuth("Sarah1", "abc123")
+                                .exchange("/cashcards/105", HttpMethod.DELETE, null, Void.class);
+
+                summary = JsonPath.parse(this.restTemplate
+                                .withBasicAuth("Sarah1", "abc123")
+                                .getForObject("/cashcards/summary", String.class));
+                assertThat(summary.read("$.cardCount", Integer.class)).isEqualTo(5);
+                assertThat(summary.read("$.totalAmount", BigDecimal.class)).isEqualByComparingTo("685.45");
+                assertThat(summary.read("$.minAmount", BigDecimal.class)).isEqualByComparingTo("37.00");
+                assertThat(summary.read("$.maxAmount", BigDecimal.class)).isEqualByComparingTo("250.00");
+        }
+
+        @Test
+        @DirtiesContext
+        @DisplayName("Creating a CashCard should deliver a CashCardCreated event")
+        void givenNewCashCard_whenCreated_thenShouldCompleteCreatedEventPublication() {
+                ResponseEntity<Void> createResponse = this.restTemplate
+                                .withBasicAuth("Sarah1", "abc123")
+                                .postForEntity("/cashcards", new CashCard(null, new BigDecimal("42.00"), null),
+                                                Void.class);
+                assertThat(createResponse.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+                String location = createResponse.getHeaders().getLocation().getPath();
+                Long id = Long.valueOf(location.substring(location.lastIndexOf('/') + 1));
+
+                await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(
+                                this.completedEventPublications.findAll())
+                                .extracting(EventPublication::getEvent)
+                                .anySatisfy(event -> assertThat(event).isInstanceOfSatisfying(CashCardCreated.class,
+                                                created -> {
+                                                        assertThat(created.id()).isEqualTo(id);
+                                                        assertThat(created.owner()).isEqualTo("Sarah1");
+                                                        assertThat(created.amount()).isEqualByComparingTo("42.00");
+                                                })));
+        }
+
+        @Test
+        @DisplayName("When filtering by amount range, only matching CashCards should be returned in order")
+        void givenAmountRange_whenFindAll_thenShouldReturnMatchingCashCards() {
+                ResponseEntity<String> response = this.restTemplate
+                                .withBasicAuth("Sarah1", "abc123")
+                                .getForEntity("/cashcards?minAmount=20&maxAmount=123.45&sort=amount,desc",
+                                                String.class);
+                assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+                DocumentContext documentContext = JsonPath.parse(response.getBody());
+                JSONArray ids = documentContext.read("$[*].id");
+                assertThat(ids).containsExactly(99, 106, 103);
+        }
+
+        @Test
+        @DisplayName("When filtering by ids, only the owner's CashCards among them should be returned")
+        void givenIds_whenFindAll_thenShouldReturnOwnedCashCardsOnly() {
+                ResponseEntity<String> response = this.restTemplate
+                                .withBasicAuth("Sarah1", "abc123")
+                                .getForEntity("/cashcards?ids=105,99,100", String.class);
+                assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+                DocumentContext documentContext = JsonPath.parse(response.getBody());
+                JSONArray ids = documentContext.read("$[*].id");
+                assertThat(ids).containsExactly(99, 105);
+        }
+
+        @Test
+        @DisplayName("When minAmount is above maxAmount, it should return 400_BAD_REQUEST")
+        void givenInvertedAmountRange_whenFindAll_thenShouldReturn400BadRequest() {
+                ResponseEntity<String> response = this.restTemplate
+                                .withBasicAuth("Sarah1", "abc123")
+                                .getForEntity("/cashcards?minAmount=100&maxAmount=10", String.class);
+                assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        }
+
+        @Test
+        @DirtiesContext
+        @DisplayName("Large pages should be gzip-compressed for clients that accept it, small responses should not")
+        void givenLargePage_whenFindAllAcceptingGzip_thenShouldReturnCompressedBody() throws Exception {
+                List<CashCardBatchOperation> operations = IntStream.range(0, 100)
+                                .mapToObj(i -> new CashCardBatchOperation(CashCardBatchOperation.Type.CREATE, null,
+                                                BigDecimal.valueOf(1_000 + i, 2)))
+                                .toList();
+                ResponseEntity<String> batch = this.restTemplate
+                                .withBasicAuth("Sarah1", "abc123")
+                                .postForEntity("/cashcards/batch", operations, String.class);
+                assertThat(batch.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+                // Called without TestRestTemplate, whose HTTP client may decompress and drop Content-Encoding
+                var page = getAcceptingGzip("/cashcards?size=200");
+                assertThat(page.statusCode()).isEqualTo(200);
+                assertThat(page.headers().firstValue("Content-Encoding")).hasValue("gzip");
+                try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(page.body()))) {
+                        JSONArray ids = JsonPath.parse(new String(in.readAllBytes(), StandardCharsets.UTF_8))
+                                        .read("$[*].id");
+                        assertThat(ids).hasSizeGreaterThan(100);
+                }
+
+                var card = getAcceptingGzip("/cashcards/99");
+                assertThat(card.statusCode()).isEqualTo(200);
+                assertThat(card.headers().firstValue("Content-Encoding")).isEmpty();
+
+                var smallPage = getAcceptingGzip("/cashcards?ids=99,105");
+                assertThat(smallPage.statusCode()).isEqualTo(200);
+                assertThat(smallPage.headers().firstValue("Content-Encoding")).isEmpty();
+        }
+
+        private HttpResponse<byte[]> getAcceptingGzip(String path)
+                        throws IOException, InterruptedException {
+                HttpRequest request = HttpRequest.newBuilder(URI.create(this.restTemplate.getRootUri() + path))
+                                .header("Authorization", "Basic " + Base64.getEncoder()
+                                                .encodeToString("Sarah1:abc123".getBytes(StandardCharsets.UTF_8)))
+                                .header("Accept-Encoding", "gzip")
+                                .build();
+                try (HttpClient client = HttpClient.newHttpClient()) {
+                        return client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                }
+        }
+
+        @Test
+        @DirtiesContext
+        @DisplayName("A create retried with the same Idempotency-Key should replay the original response")
+        void givenIdempotencyKey_whenCreateRetried_thenShouldCreateOnlyOneCashCard() {
+                HttpHeaders headers = new HttpHeaders();
+                headers.set(CashCardController.IDEMPOTENCY_KEY_HEADER, "3f1c9a52-create");
+                CashCard newCashCard = new CashCard(null, new BigDecimal("55.55"), null);
+
+                ResponseEntity<Void> first = this.restTemplate
+                                .withBasicAuth("Sarah1", "abc123")
+                                .postForEntity("/cashcards", new HttpEntity<>(newCashCard, headers), Void.class);
+                ResponseEntity<Void> retry = this.restTemplate
+                                .withBasicAuth("Sarah1", "abc123")
+                                .postForEntity("/cashcards", new HttpEntity<>(newCashCard, headers), Void.class);
+
+                assertThat(first.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+                assertThat(retry.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+                assertThat(retry.getHeaders().getLocation()).isEqualTo(first.getHeaders().getLocation());
+                assertThat(retry.getHeaders().getFirst(CashCardController.IDEMPOTENT_REPLAYED_HEADER))
+                                .isEqualTo("true");
+                DocumentContext summary = JsonPath.parse(this.restTemplate
+                                .withBasicAuth("Sarah1", "abc123")
+                                .getForObject("/cashcards/summary", String.class));
+                assertThat(summary.read("$.cardCount", Integer.class)).isEqualTo(6);
+
+                ResponseEntity<Void> reused = this.restTemplate
+                                .withBasicAuth("Sarah1", "abc123")
+                                .postForEntity("/cashcards",
+                                                new HttpEntity<>(new CashCard(null, new BigDecimal("1.00"), null),
+                                                                headers),
+                                                Void.class);
+                assertThat(reused.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+        }
+
+        @Test
+        @DirtiesContext
+        @DisplayName("An adjustment retried with the same Idempotency-Key should be applied once")
+        void givenIdempotencyKey_whenAdjustRetried_thenShouldApplyDeltaOnce() {
+                HttpHeaders headers = new HttpHeaders();
+                headers.set(CashCardController.IDEMPOTENCY_KEY_HEADER, "3f1c9a52-adjust");
+                var request = new HttpEntity<>(new CashCardAdjustment(new BigDecimal("10.00"), true), headers);
+
+                ResponseEntity<String> first = this.restTemplate
+                                .withBasicAuth("Sarah1", "abc123")
+                                .postForEntity("/cashcards/99/adjust", request, String.class);
+                ResponseEntity<String> retry = this.restTemplate
+                                .withBasicAuth("Sarah1", "abc123")
+                                .postForEntity("/cashcards/99/adjust", request, String.class);
+
+                // The same delta written with another scale is the same request
+                ResponseEntity<String> rescaledRetry = this.restTemplate
+                                .withBasicAuth("Sarah1", "abc123")
+                                .postForEntity("/cashcards/99/adjust", new HttpEntity<>(
+                                                new CashCardAdjustment(new BigDecimal("10.0"), true), headers),
+                                                String.class);
+
+                assertThat(first.getStatusCode()).isEqualTo(HttpStatus.OK);
+                assertThat(retry.getStatusCode()).isEqualTo(HttpStatus.OK);
+                assertThat(retry.getHeaders().getETag()).isEqualTo(first.getHeaders().getETag());
+                assertThat(rescaledRetry.getStatusCode()).isEqualTo(HttpStatus.OK);
+                assertThat(rescaledRetry.getHeaders().getFirst(CashCardController.IDEMPOTENT_REPLAYED_HEADER))
+                                .isEqualTo("true");
+                Double replayedAmount = JsonPath.parse(retry.getBody()).read("$.amount");
+                assertThat(replayedAmount).isEqualTo(133.45);
+
+                ResponseEntity<String> found = this.restTemplate
+                                .withBasicAuth("Sarah1", "abc123")
+                                .getForEntity("/cashcards/99", String.class);
+                Double foundAmount = JsonPath.parse(found.getBody()).read("$.amount");
+                assertThat(foundAmount).isEqualTo(133.45);
+        }
 }
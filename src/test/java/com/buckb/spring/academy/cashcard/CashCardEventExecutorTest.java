@@ -0,0 +1,94 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.modulith.events.ApplicationModuleListener;
+import org.springframework.test.annotation.DirtiesContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "cashcard.events.executor.concurrency=2",
+        "cashcard.events.executor.queue-capacity=100" })
+@DirtiesContext
+class CashCardEventExecutorTest {
+
+        @Autowired
+        TestRestTemplate restTemplate;
+
+        @Autowired
+        BlockingListener blockingListener;
+
+        @TestConfiguration
+        static class BlockingListenerConfiguration {
+
+                @Bean
+                BlockingListener blockingListener() {
+                        return new BlockingListener();
+                }
+        }
+
+        /**
+         * Holds on to every event delivery thread until released. Accessed through methods only, the bean is an
+         * asynchronous proxy.
+         */
+        static class BlockingListener {
+
+                private final Semaphore running = new Semaphore(0);
+                private final CountDownLatch released = new CountDownLatch(1);
+
+                @ApplicationModuleListener
+                void on(CashCardCreated event) throws InterruptedException {
+                        this.running.release();
+                        this.released.await(30, TimeUnit.SECONDS);
+                }
+
+                boolean awaitRunning(int deliveries) throws InterruptedException {
+                        return this.running.tryAcquire(deliveries, 10, TimeUnit.SECONDS);
+                }
+
+                void release() {
+                        this.released.countDown();
+                }
+        }
+
+        @Test
+        @DisplayName("An export should not wait for event deliveries occupying every event thread")
+        void givenEventDeliveriesInFlight_whenExport_thenShouldReturnCashCards() throws InterruptedException {
+                try {
+                        for (int i = 0; i < 3; i++) {
+                                ResponseEntity<Void> created = this.restTemplate
+                                                .withBasicAuth("Sarah1", "abc123")
+                                                .postForEntity("/cashcards",
+                                                                new CashCard(null, new BigDecimal("1.00"), null),
+                                                                Void.class);
+                                assertThat(created.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+                        }
+                        assertThat(this.blockingListener.awaitRunning(2)).isTrue();
+
+                        ResponseEntity<String> export = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                                        () -> this.restTemplate
+                                                        .withBasicAuth("Sarah1", "abc123")
+                                                        .getForEntity("/cashcards/export", String.class));
+                        assertThat(export.getStatusCode()).isEqualTo(HttpStatus.OK);
+                        // The five cards from the test data and the three created above
+                        assertThat(export.getBody().lines()).hasSize(8);
+                } finally {
+                        this.blockingListener.release();
+                }
+        }
+}
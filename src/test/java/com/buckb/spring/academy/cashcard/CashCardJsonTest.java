@@ -2,12 +2,17 @@ package com.buckb.spring.academy.cashcard;
 
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.json.JsonTest;
 import org.springframework.boot.test.json.JacksonTester;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -27,6 +32,9 @@ public class CashCardJsonTest {
     @Autowired
     private JacksonTester<CashCard[]> jsonList;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     private CashCard[] cashCardsList;
     private CashCard expectedEntity;
 
@@ -104,4 +112,25 @@ public class CashCardJsonTest {
 
         assertThat(this.jsonList.parse(expected)).isEqualTo(this.cashCardsList);
     }
+
+    @Test
+    void cashCardSerializer_shouldBeUsedByTheApplicationObjectMapper() throws Exception {
+        assertThat(this.objectMapper.getSerializerProviderInstance().findValueSerializer(CashCard.class))
+                .isInstanceOf(CashCardJsonSerializer.class);
+    }
+
+    @Test
+    void cashCardSerializer_shouldWriteSameBytesAsReflectiveSerializer() throws Exception {
+        ObjectMapper reflective = Jackson2ObjectMapperBuilder.json().build();
+        List<CashCard> cards = new ArrayList<>(List.of(this.cashCardsList));
+        // Amounts as H2 returns them (trailing zeros stripped), plus missing values
+        cards.add(new CashCard(109L, new BigDecimal("2E+2"), "Sarah1"));
+        cards.add(new CashCard(110L, new BigDecimal("-0.01"), "Owner with \"quotes\" and \u00e9"));
+        cards.add(new CashCard(null, null, null, 3L));
+
+        for (CashCard card : cards) {
+            assertThat(this.objectMapper.writeValueAsBytes(card)).isEqualTo(reflective.writeValueAsBytes(card));
+        }
+        assertThat(this.objectMapper.writeValueAsBytes(cards)).isEqualTo(reflective.writeValueAsBytes(cards));
+    }
 }
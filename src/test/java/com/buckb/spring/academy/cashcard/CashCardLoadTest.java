@@ -0,0 +1,124 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives the five card endpoints with a weighted mix against each configured profile and prints throughput
+ * and latency percentiles per endpoint. Run with {@code ./gradlew loadTest}; tune with
+ * {@code -Dloadtest.profiles=default,perf,perf+virtual}, {@code -Dloadtest.mix=findById=50,findAll=30,...},
+ * {@code -Dloadtest.requests}, {@code -Dloadtest.concurrency} and {@code -Dloadtest.seed}.
+ */
+@Tag("load")
+class CashCardLoadTest {
+
+    private static final int REQUESTS = Integer.getInteger("loadtest.requests", 20_000);
+    private static final int CONCURRENCY = Integer.getInteger("loadtest.concurrency", 200);
+    private static final long SEED = Long.getLong("loadtest.seed", 42);
+    private static final String PROFILES = System.getProperty("loadtest.profiles", "default,perf");
+    private static final String MIX = System.getProperty("loadtest.mix",
+            "findById=50,findAll=30,create=10,update=8,delete=2");
+
+    /** Cards the update operation cycles through, so concurrent updates rarely hit the same version. */
+    private static final int UPDATE_POOL_SIZE = 1_000;
+
+    private static Map<String, Integer> weights() {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String entry : MIX.split(",")) {
+            String[] nameAndWeight = entry.split("=");
+            weights.put(nameAndWeight[0].trim(), Integer.valueOf(nameAndWeight[1].trim()));
+        }
+        return weights;
+    }
+
+    private static List<LoadDriver.Result> measure(String profile) throws IOException, InterruptedException {
+        String[] profiles = profile.equals("default") ? new String[0] : profile.split("\\+");
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(CashCardApplication.class)
+                .profiles(profiles)
+                .properties("server.port=0", "DB_USER=sa", "DB_PASSWORD=", "CONSOLE_PATH=h2-console",
+                        // A single client measures the server here, not the per-owner limit
+                        "cashcard.rate-limit.enabled=false")
+                .run()) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            LoadDriver driver = new LoadDriver(port, "Sarah1", "abc123");
+
+            // The ids are filled in below, once the mix tells how many deletes it will send
+            List<Long> updateIds = new ArrayList<>();
+            List<Long> deleteIds = new ArrayList<>();
+            List<LoadDriver.Operation> mix = weights().entrySet().stream()
+                    .map(entry -> new LoadDriver.Operation(entry.getKey(), entry.getValue(),
+                            operation(driver, entry.getKey(), updateIds, deleteIds)))
+                    .toList();
+            updateIds.addAll(create(driver, UPDATE_POOL_SIZE));
+            int[] planned = LoadDriver.plannedCounts(REQUESTS, SEED, mix);
+            for (int o = 0; o < mix.size(); o++) {
+                if (mix.get(o).name().equals("delete")) {
+                    deleteIds.addAll(create(driver, planned[o]));
+                }
+            }
+
+            // Warm up the JIT, the connection pool and the caches first
+            driver.run(profile, CONCURRENCY, REQUESTS / 4, n -> driver.request("/cashcards/99").GET().build());
+            return driver.runMix(profile, CONCURRENCY, REQUESTS, SEED, mix);
+        }
+    }
+
+    private static IntFunction<HttpRequest> operation(LoadDriver driver, String name,
+            List<Long> updateIds, List<Long> deleteIds) {
+        return switch (name) {
+            case "findById" -> n -> driver.request("/cashcards/99").GET().build();
+            case "findAll" -> n -> driver.request("/cashcards?page=0&size=20&sort=amount,desc").GET().build();
+            case "create" -> n -> json(driver.request("/cashcards"), "POST", "{\"amount\": 10.00}");
+            case "update" -> n -> json(driver.request("/cashcards/" + updateIds.get(n % updateIds.size())), "PUT",
+                    "{\"amount\": " + (n % 500) + ".25}");
+            case "delete" -> n -> driver.request("/cashcards/" + deleteIds.get(n)).DELETE().build();
+            default -> throw new IllegalArgumentException("Unknown operation in loadtest.mix: " + name);
+        };
+    }
+
+    private static HttpRequest json(HttpRequest.Builder request, String method, String body) {
+        return request.header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static List<Long> create(LoadDriver driver, int count) throws IOException, InterruptedException {
+        List<Long> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String location = driver.send(json(driver.request("/cashcards"), "POST", "{\"amount\": 100.00}"))
+                    .headers().firstValue("Location").orElseThrow();
+            ids.add(Long.valueOf(location.substring(location.lastIndexOf('/') + 1)));
+        }
+        return ids;
+    }
+
+    @Test
+    @DisplayName("Each profile should serve the endpoint mix without errors")
+    void compareProfiles() throws IOException, InterruptedException {
+        Map<String, List<LoadDriver.Result>> results = new LinkedHashMap<>();
+        for (String profile : PROFILES.split(",")) {
+            results.put(profile.trim(), measure(profile.trim()));
+        }
+
+        System.out.printf("%d requests, %d clients, mix %s, seed %d%n", REQUESTS, CONCURRENCY, MIX, SEED);
+        results.values().forEach(profileResults -> profileResults.forEach(System.out::println));
+
+        results.forEach((profile, profileResults) -> assertThat(profileResults)
+                .as(profile)
+                .allSatisfy(result -> assertThat(result.errors()).as(result.label()).isZero()));
+    }
+}
@@ -0,0 +1,73 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// A negative retention makes cards deleted just now eligible on the next run
+@SpringBootTest(properties = { "cashcard.tombstones.retention=-1m", "cashcard.tombstones.chunk-size=2" })
+class CashCardTombstonesTest {
+
+    @Autowired
+    CashCardRepository repository;
+
+    @Autowired
+    CashCardTombstones tombstones;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Test
+    @DirtiesContext
+    @DisplayName("Deleted cards should be hidden at once and archived in chunks by the background job")
+    void givenDeletedCards_whenCompacting_thenShouldMoveThemToArchive() {
+        for (long id : List.of(99L, 102L, 103L)) {
+            assertThat(this.repository.softDeleteByIdAndOwnerAndVersion(id, "Sarah1", 0L)).isTrue();
+        }
+
+        assertThat(this.repository.findByIdAndOwner(99L, "Sarah1")).isEmpty();
+        assertThat(this.repository.existsByIdAndOwner(102L, "Sarah1")).isFalse();
+        assertThat(this.jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM cash_card WHERE deleted_at IS NOT NULL", Integer.class)).isEqualTo(3);
+
+        assertThat(this.tombstones.compact()).isEqualTo(3);
+
+        assertThat(this.jdbcTemplate.queryForList("SELECT id FROM cash_card WHERE id IN (99, 102, 103)"))
+                .isEmpty();
+        List<Map<String, Object>> archived = this.jdbcTemplate.queryForList(
+                "SELECT id, owner FROM cash_card_archive ORDER BY id");
+        assertThat(archived).extracting(row -> ((Number) row.get("ID")).longValue())
+                .containsExactly(99L, 102L, 103L);
+        assertThat(archived).extracting(row -> row.get("OWNER")).containsOnly("Sarah1");
+        assertThat(this.tombstones.compact()).isZero();
+    }
+
+    @Test
+    @DisplayName("Each chunk should seek on the primary key instead of scanning the whole table")
+    void givenChunkQuery_whenExplaining_thenShouldSeekOnPrimaryKey() {
+        MapSqlParameterSource parameters = new MapSqlParameterSource("after", 102L)
+                .addValue("cutoff", Timestamp.from(Instant.now()))
+                .addValue("limit", 2);
+        String plan = String.join("\n", this.namedParameterJdbcTemplate.queryForList(
+                "EXPLAIN " + CashCardTombstones.SELECT_SQL, parameters, String.class));
+
+        assertThat(plan).containsIgnoringCase("PRIMARY_KEY")
+                .containsIgnoringCase("ID >")
+                .doesNotContainIgnoringCase("tableScan");
+    }
+}
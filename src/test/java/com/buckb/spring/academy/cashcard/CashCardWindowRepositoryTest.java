@@ -0,0 +1,55 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class CashCardWindowRepositoryTest {
+
+    @Autowired
+    NamedParameterJdbcTemplate jdbcTemplate;
+
+    private String explain(String sql, CashCardFilter filter) {
+        MapSqlParameterSource parameters = filter.addParameters(new MapSqlParameterSource("owner", "Sarah1"))
+                .addValue("limit", 20)
+                .addValue("offset", 0);
+        List<String> plan = this.jdbcTemplate.queryForList("EXPLAIN " + sql, parameters, String.class);
+        return String.join("\n", plan);
+    }
+
+    @Test
+    @DisplayName("An amount range should be answered by a range scan of the (owner, amount, id) index")
+    void givenAmountRange_whenExplainingPageQuery_thenShouldUseOwnerAmountIndex() {
+        CashCardFilter filter = new CashCardFilter(new BigDecimal("20"), new BigDecimal("100"), null);
+
+        String plan = explain(CashCardWindowRepositoryImpl.pageSql(filter, Sort.by(Sort.Order.asc("amount"))),
+                filter);
+
+        assertThat(plan).containsIgnoringCase("IX_CASH_CARD_OWNER_AMOUNT_ID")
+                .containsIgnoringCase("AMOUNT >=")
+                .containsIgnoringCase("AMOUNT <=")
+                .doesNotContainIgnoringCase("tableScan");
+    }
+
+    @Test
+    @DisplayName("An amount range in keyset mode should use the same index")
+    void givenAmountRange_whenExplainingWindowQuery_thenShouldUseOwnerAmountIndex() {
+        CashCardFilter filter = new CashCardFilter(null, new BigDecimal("50"), null);
+
+        String plan = explain(CashCardWindowRepositoryImpl.windowSql(filter, Sort.Order.desc("amount"), false),
+                filter);
+
+        assertThat(plan).containsIgnoringCase("IX_CASH_CARD_OWNER_AMOUNT_ID")
+                .doesNotContainIgnoringCase("tableScan");
+    }
+}
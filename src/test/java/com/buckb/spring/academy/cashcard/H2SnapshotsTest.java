@@ -0,0 +1,104 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class H2SnapshotsTest {
+
+    @TempDir
+    Path storage;
+
+    // Command-line arguments: default properties would lose to application-durable.properties
+    private ConfigurableApplicationContext start(String directory) {
+        return new SpringApplicationBuilder(CashCardApplication.class)
+                .profiles("durable")
+                .properties("DB_USER=sa", "DB_PASSWORD=", "CONSOLE_PATH=h2-console")
+                .run("--server.port=0",
+                        "--cashcard.storage.directory=" + this.storage.resolve(directory),
+                        "--cashcard.storage.snapshot-directory=" + this.storage.resolve("snapshots"),
+                        // The test fixtures assume an empty database on every start
+                        "--spring.sql.init.data-locations=optional:classpath:none.sql",
+                        // The operator account is provisioned from configuration, as in a deployment
+                        "--cashcard.users.accounts.admin.password="
+                                + "$2a$10$9ATsrcFH9EuDaVmByfL4le6CyDcXGmAa5DKbCodsjC3HXtFY1A/ha",
+                        "--cashcard.users.accounts.admin.authorities=ROLE_ADMIN");
+    }
+
+    @Test
+    @DisplayName("A node without a database file should start from the latest snapshot")
+    void givenSnapshot_whenStartingWithoutDatabase_thenShouldRestoreCards() {
+        Long id;
+        try (ConfigurableApplicationContext context = start("first")) {
+            id = context.getBean(CashCardRepository.class)
+                    .save(new CashCard(null, new BigDecimal("12.34"), "Sarah1")).id();
+            assertThat(this.storage.resolve("first/cashcardsdb.mv.db")).exists();
+            Path snapshot = context.getBean(H2Snapshots.class).snapshot();
+            assertThat(snapshot).exists().startsWith(this.storage.resolve("snapshots"));
+        }
+
+        try (ConfigurableApplicationContext context = start("second")) {
+            assertThat(this.storage.resolve("second/cashcardsdb.mv.db")).exists();
+            assertThat(context.getBean(CashCardRepository.class).findByIdAndOwner(id, "Sarah1"))
+                    .hasValueSatisfying(card -> assertThat(card.amount()).isEqualByComparingTo("12.34"));
+        }
+    }
+
+    private TestRestTemplate restTemplate(ConfigurableApplicationContext context) {
+        return new TestRestTemplate(new RestTemplateBuilder()
+                .rootUri("http://localhost:" + context.getEnvironment().getProperty("local.server.port")));
+    }
+
+    @Test
+    @DisplayName("A snapshot taken through the actuator endpoint should restore a new node")
+    void givenSnapshotTakenThroughEndpoint_whenStartingWithoutDatabase_thenShouldRestoreCards() {
+        Long id;
+        try (ConfigurableApplicationContext context = start("first")) {
+            id = context.getBean(CashCardRepository.class)
+                    .save(new CashCard(null, new BigDecimal("43.21"), "Sarah1")).id();
+
+            ResponseEntity<String> denied = restTemplate(context)
+                    .withBasicAuth("Sarah1", "abc123")
+                    .postForEntity("/actuator/snapshots", null, String.class);
+            assertThat(denied.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN);
+
+            ResponseEntity<String> snapshot = restTemplate(context)
+                    .withBasicAuth("admin", "pqr456")
+                    .postForEntity("/actuator/snapshots", null, String.class);
+            assertThat(snapshot.getStatusCode()).isEqualTo(HttpStatus.OK);
+            assertThat(Path.of(snapshot.getBody())).exists().startsWith(this.storage.resolve("snapshots"));
+        }
+
+        try (ConfigurableApplicationContext context = start("second")) {
+            assertThat(this.storage.resolve("second/cashcardsdb.mv.db")).exists();
+            assertThat(context.getBean(CashCardRepository.class).findByIdAndOwner(id, "Sarah1"))
+                    .hasValueSatisfying(card -> assertThat(card.amount()).isEqualByComparingTo("43.21"));
+        }
+    }
+
+    @Test
+    @DisplayName("Restarting on an existing database file should keep the cards")
+    void givenDurableDatabase_whenRestarting_thenShouldKeepCards() {
+        Long id;
+        try (ConfigurableApplicationContext context = start("node")) {
+            id = context.getBean(CashCardRepository.class)
+                    .save(new CashCard(null, new BigDecimal("56.78"), "Sarah1")).id();
+            assertThat(this.storage.resolve("node/cashcardsdb.mv.db")).exists();
+        }
+
+        try (ConfigurableApplicationContext context = start("node")) {
+            assertThat(context.getBean(CashCardRepository.class).findByIdAndOwner(id, "Sarah1")).isPresent();
+        }
+    }
+}
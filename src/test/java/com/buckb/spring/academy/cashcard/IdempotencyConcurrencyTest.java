@@ -0,0 +1,126 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.jayway.jsonpath.JsonPath;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// A short lock timeout, so a retry that finds its key held gives up quickly
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:idempotency;LOCK_TIMEOUT=2000" })
+@DirtiesContext
+class IdempotencyConcurrencyTest {
+
+        @Autowired
+        TestRestTemplate restTemplate;
+
+        @Autowired
+        IdempotencyStore idempotencyStore;
+
+        @Autowired
+        PlatformTransactionManager transactionManager;
+
+        private ResponseEntity<Void> create(String idempotencyKey, String amount) {
+                HttpHeaders headers = new HttpHeaders();
+                headers.set(CashCardController.IDEMPOTENCY_KEY_HEADER, idempotencyKey);
+                return this.restTemplate
+                                .withBasicAuth("Sarah1", "abc123")
+                                .postForEntity("/cashcards",
+                                                new HttpEntity<>(new CashCard(null, new BigDecimal(amount), null),
+                                                                headers),
+                                                Void.class);
+        }
+
+        private int cardCount() {
+                return JsonPath.parse(this.restTemplate
+                                .withBasicAuth("Sarah1", "abc123")
+                                .getForObject("/cashcards/summary", String.class))
+                                .read("$.cardCount", Integer.class);
+        }
+
+        @Test
+        @DisplayName("Two concurrent creates with the same Idempotency-Key should write once and replay once")
+        void givenConcurrentRequestsWithSameKey_whenCreate_thenShouldWriteOnceAndReplayOnce() throws Exception {
+                int cardsBefore = cardCount();
+                CountDownLatch start = new CountDownLatch(1);
+                List<ResponseEntity<Void>> responses = new ArrayList<>();
+                try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+                        List<Future<ResponseEntity<Void>>> futures = new ArrayList<>();
+                        for (int i = 0; i < 2; i++) {
+                                futures.add(clients.submit(() -> {
+                                        start.await();
+                                        return create("7d2e41b0-concurrent", "12.00");
+                                }));
+                        }
+                        start.countDown();
+                        for (Future<ResponseEntity<Void>> future : futures) {
+                                responses.add(future.get(10, TimeUnit.SECONDS));
+                        }
+                }
+
+                assertThat(responses).extracting(ResponseEntity::getStatusCode).containsOnly(HttpStatus.CREATED);
+                assertThat(responses)
+                                .extracting(response -> response.getHeaders()
+                                                .getFirst(CashCardController.IDEMPOTENT_REPLAYED_HEADER))
+                                .containsExactlyInAnyOrder("true", null);
+                assertThat(responses.get(1).getHeaders().getLocation())
+                                .isEqualTo(responses.get(0).getHeaders().getLocation());
+                assertThat(cardCount()).isEqualTo(cardsBefore + 1);
+        }
+
+        @Test
+        @DisplayName("A retry while the original request still holds its key should get 409 with Retry-After")
+        void givenKeyHeldByRunningRequest_whenRetried_thenShouldReturn409Conflict() throws Exception {
+                String key = "7d2e41b0-held";
+                CompletableFuture<Void> claimed = new CompletableFuture<>();
+                CompletableFuture<Void> answered = new CompletableFuture<>();
+                ResponseEntity<Void> retry;
+                try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                        // Stands in for the original request: claims the key, then stays open until the retry
+                        // has its answer
+                        Future<?> original = executor.submit(() -> new TransactionTemplate(this.transactionManager)
+                                        .executeWithoutResult(status -> {
+                                                this.idempotencyStore.claim("Sarah1", key, IdempotencyStore
+                                                                .fingerprint("create", new BigDecimal("34.00")));
+                                                claimed.complete(null);
+                                                answered.join();
+                                                status.setRollbackOnly();
+                                        }));
+                        try {
+                                claimed.get(10, TimeUnit.SECONDS);
+                                retry = create(key, "34.00");
+                        } finally {
+                                answered.complete(null);
+                        }
+                        original.get(10, TimeUnit.SECONDS);
+                }
+
+                assertThat(retry.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+                assertThat(retry.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+
+                // The original rolled back and released the key
+                assertThat(create(key, "34.00").getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        }
+}
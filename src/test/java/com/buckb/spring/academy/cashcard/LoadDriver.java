@@ -0,0 +1,201 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * Minimal closed-loop HTTP load generator for the load tests: a fixed number of virtual-thread
+ * clients send requests back to back until the requested total is reached.
+ */
+final class LoadDriver {
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    private final URI baseUri;
+    private final String authorization;
+
+    LoadDriver(int port, String username, String password) {
+        this.baseUri = URI.create("http://localhost:" + port);
+        this.authorization = "Basic " + Base64.getEncoder()
+                .encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+    }
+
+    HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(this.baseUri.resolve(path))
+                .header("Authorization", this.authorization)
+                .timeout(Duration.ofSeconds(30));
+    }
+
+    HttpResponse<Void> send(HttpRequest request) throws IOException, InterruptedException {
+        return this.client.send(request, HttpResponse.BodyHandlers.discarding());
+    }
+
+    /**
+     * Sends {@code totalRequests} requests from {@code concurrency} clients; {@code requests} builds the
+     * n-th request. Responses other than 2xx count as errors.
+     */
+    Result run(String label, int concurrency, int totalRequests, IntFunction<HttpRequest> requests)
+            throws InterruptedException {
+        Measurement measurement = drive(concurrency, totalRequests, requests);
+        return Result.of(label, measurement.latencies(), measurement.errors(), measurement.elapsed());
+    }
+
+    /**
+     * Sends a weighted mix of operations. Which operation the n-th request uses is drawn from {@code seed},
+     * so the same seed replays the same sequence.
+     *
+     * @return one result per operation, followed by the result over all requests
+     */
+    List<Result> runMix(String label, int concurrency, int totalRequests, long seed, List<Operation> mix)
+            throws InterruptedException {
+        int[] operationOf = assign(totalRequests, seed, mix);
+        // Built up front so the n-th use of every operation is the same regardless of thread scheduling
+        int[] uses = new int[mix.size()];
+        HttpRequest[] prepared = new HttpRequest[totalRequests];
+        for (int n = 0; n < totalRequests; n++) {
+            prepared[n] = mix.get(operationOf[n]).requests().apply(uses[operationOf[n]]++);
+        }
+        Measurement measurement = drive(concurrency, totalRequests, n -> prepared[n]);
+
+        List<Result> results = new ArrayList<>();
+        for (int o = 0; o < mix.size(); o++) {
+            int operation = o;
+            int[] indexes = IntStream.range(0, totalRequests).filter(n -> operationOf[n] == operation).toArray();
+            long[] latencies = Arrays.stream(indexes).mapToLong(n -> measurement.latencies()[n]).toArray();
+            int errors = (int) Arrays.stream(indexes).filter(n -> measurement.failed()[n]).count();
+            results.add(Result.of(label + " " + mix.get(o).name(), latencies, errors, measurement.elapsed()));
+        }
+        results.add(Result.of(label + " total", measurement.latencies(), measurement.errors(),
+                measurement.elapsed()));
+        return results;
+    }
+
+    /**
+     * Number of requests of each operation that {@link #runMix} will send, so callers can prepare data.
+     */
+    static int[] plannedCounts(int totalRequests, long seed, List<Operation> mix) {
+        int[] counts = new int[mix.size()];
+        for (int operation : assign(totalRequests, seed, mix)) {
+            counts[operation]++;
+        }
+        return counts;
+    }
+
+    private static int[] assign(int totalRequests, long seed, List<Operation> mix) {
+        int totalWeight = mix.stream().mapToInt(Operation::weight).sum();
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] operationOf = new int[totalRequests];
+        for (int n = 0; n < totalRequests; n++) {
+            int draw = random.nextInt(totalWeight);
+            int operation = 0;
+            while (draw >= mix.get(operation).weight()) {
+                draw -= mix.get(operation).weight();
+                operation++;
+            }
+            operationOf[n] = operation;
+        }
+        return operationOf;
+    }
+
+    private Measurement drive(int concurrency, int totalRequests, IntFunction<HttpRequest> requests)
+            throws InterruptedException {
+        long[] latencies = new long[totalRequests];
+        boolean[] failed = new boolean[totalRequests];
+        AtomicInteger next = new AtomicInteger();
+
+        long start = System.nanoTime();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < concurrency; c++) {
+                clients.submit(() -> {
+                    for (int n = next.getAndIncrement(); n < totalRequests; n = next.getAndIncrement()) {
+                        long sent = System.nanoTime();
+                        try {
+                            failed[n] = send(requests.apply(n)).statusCode() >= 300;
+                        } catch (IOException e) {
+                            failed[n] = true;
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                        latencies[n] = System.nanoTime() - sent;
+                    }
+                });
+            }
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+        return new Measurement(latencies, failed, elapsed);
+    }
+
+    /**
+     * One kind of request in a mix.
+     *
+     * @param weight relative share of the requests
+     * @param requests builds the request for the n-th use of this operation
+     */
+    record Operation(String name, int weight, IntFunction<HttpRequest> requests) {
+    }
+
+    private record Measurement(long[] latencies, boolean[] failed, Duration elapsed) {
+
+        int errors() {
+            int errors = 0;
+            for (boolean f : this.failed) {
+                if (f) {
+                    errors++;
+                }
+            }
+            return errors;
+        }
+    }
+
+    private static Duration percentile(long[] sortedNanos, double quantile) {
+        int index = (int) Math.ceil(quantile * sortedNanos.length) - 1;
+        return Duration.ofNanos(sortedNanos[Math.max(index, 0)]);
+    }
+
+    record Result(String label, int requests, int errors, Duration elapsed, Duration p50, Duration p99,
+            Duration max) {
+
+        static Result of(String label, long[] latencies, int errors, Duration elapsed) {
+            long[] sorted = latencies.clone();
+            Arrays.sort(sorted);
+            if (sorted.length == 0) {
+                return new Result(label, 0, errors, elapsed, Duration.ZERO, Duration.ZERO, Duration.ZERO);
+            }
+            return new Result(label, sorted.length, errors, elapsed,
+                    percentile(sorted, 0.50), percentile(sorted, 0.99), Duration.ofNanos(sorted[sorted.length - 1]));
+        }
+
+        double throughput() {
+            return this.requests / (this.elapsed.toNanos() / 1_000_000_000.0);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-32s %7d req %5d err %10.1f req/s   p50 %7.2f ms   p99 %7.2f ms   max %7.2f ms",
+                    this.label, this.requests, this.errors, throughput(),
+                    this.p50.toNanos() / 1e6, this.p99.toNanos() / 1e6, this.max.toNanos() / 1e6);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.buckb.spring.academy.cashcard;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// The scrape account is provisioned from configuration, as in a deployment
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "cashcard.users.accounts.prometheus.password=$2a$10$z0bWSHNpHFwNjuGjd4AAe.rFkwdCiEgYhxpk8NcEn21Vu99pHDG4a",
+        "cashcard.users.accounts.prometheus.authorities=ROLE_METRICS" })
+@AutoConfigureObservability
+class MetricsTest {
+
+        @Autowired
+        TestRestTemplate restTemplate;
+
+        @Test
+        @DisplayName("The Prometheus endpoint should expose request, repository, password and pool timings")
+        void givenCashCardRequest_whenScrapingPrometheus_thenShouldContainTimers() {
+                ResponseEntity<String> card = this.restTemplate
+                                .withBasicAuth("Sarah1", "abc123")
+                                .getForEntity("/cashcards/99", String.class);
+                assertThat(card.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+                assertThat(this.restTemplate.getForEntity("/actuator/prometheus", String.class).getStatusCode())
+                                .isEqualTo(HttpStatus.UNAUTHORIZED);
+                assertThat(this.restTemplate
+                                .withBasicAuth("Sarah1", "abc123")
+                                .getForEntity("/actuator/prometheus", String.class).getStatusCode())
+                                .isEqualTo(HttpStatus.FORBIDDEN);
+
+                ResponseEntity<String> response = this.restTemplate
+                                .withBasicAuth("prometheus", "stu901")
+                                .getForEntity("/actuator/prometheus", String.class);
+                assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+                assertThat(response.getBody())
+                                .contains("http_server_requests_seconds_bucket")
+                                .containsPattern("http_server_requests_seconds_count\\{[^}]*outcome=\"SUCCESS\"[^}]*"
+                                                + "uri=\"/cashcards/\\{id}\"")
+                                .containsPattern("spring_data_repository_invocations_seconds_count\\{[^}]*"
+                                                + "method=\"findByIdAndOwner\"")
+                                .containsPattern("cashcard_password_matches_seconds_count\\{outcome=\"match\"}")
+                                .contains("cashcard_auth_cache_requests_total")
+                                .contains("hikaricp_connections_acquire_seconds_count");
+        }
+}
@@ -0,0 +1,51 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OwnerRateLimiterTest {
+
+    private final AtomicLong nanoTime = new AtomicLong();
+
+    private final OwnerRateLimiter limiter = new OwnerRateLimiter(
+            new RateLimitProperties(true, 10, 3, 100), this.nanoTime::get);
+
+    @Test
+    @DisplayName("An idle owner should be allowed a full burst, then be told when to retry")
+    void givenIdleOwner_whenBurstIsUsedUp_thenShouldReturnRetryAfter() {
+        assertThat(this.limiter.tryAcquire("Sarah1")).isZero();
+        assertThat(this.limiter.tryAcquire("Sarah1")).isZero();
+        assertThat(this.limiter.tryAcquire("Sarah1")).isZero();
+
+        assertThat(this.limiter.tryAcquire("Sarah1")).isEqualTo(Duration.ofMillis(100));
+    }
+
+    @Test
+    @DisplayName("Tokens should be refilled at the configured rate")
+    void givenExhaustedBucket_whenTimePasses_thenShouldAllowAgain() {
+        for (int i = 0; i < 3; i++) {
+            this.limiter.tryAcquire("Sarah1");
+        }
+
+        this.nanoTime.addAndGet(Duration.ofMillis(100).toNanos());
+
+        assertThat(this.limiter.tryAcquire("Sarah1")).isZero();
+        assertThat(this.limiter.tryAcquire("Sarah1")).isPositive();
+    }
+
+    @Test
+    @DisplayName("One owner using up their bucket should not affect another owner")
+    void givenExhaustedOwner_whenOtherOwnerRequests_thenShouldAllow() {
+        for (int i = 0; i < 3; i++) {
+            this.limiter.tryAcquire("Sarah1");
+        }
+
+        assertThat(this.limiter.tryAcquire("Sarah1")).isPositive();
+        assertThat(this.limiter.tryAcquire("Pierre")).isZero();
+    }
+}
@@ -0,0 +1,89 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.annotation.DirtiesContext;
+
+import com.jayway.jsonpath.JsonPath;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary",
+        "cashcard.datasource.replica.urls=" + ReplicaRoutingTest.REPLICA_URL,
+        "cashcard.datasource.replica.username=sa",
+        "cashcard.datasource.replica.password=",
+        "cashcard.datasource.replica.read-your-writes=1h",
+        // Every read must reach a database for the routing to be visible
+        "cashcard.card-cache.max-size=0" })
+@DirtiesContext
+class ReplicaRoutingTest {
+
+        static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+
+        @Autowired
+        TestRestTemplate restTemplate;
+
+        @BeforeAll
+        static void createReplica() {
+                // A second H2 database with the same cards, except that every balance is 1000 higher, so a
+                // response tells which database served it
+                DriverManagerDataSource replica = new DriverManagerDataSource(REPLICA_URL, "sa", "");
+                new ResourceDatabasePopulator(new ClassPathResource("schema-drop.sql"),
+                                new ClassPathResource("schema.sql"), new ClassPathResource("data.sql"))
+                                .execute(replica);
+                new JdbcTemplate(replica).update("UPDATE cash_card SET amount = amount + 1000");
+        }
+
+        private BigDecimal amountOf(String username, String password, long id) {
+                ResponseEntity<String> response = this.restTemplate
+                                .withBasicAuth(username, password)
+                                .getForEntity("/cashcards/" + id, String.class);
+                assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+                return JsonPath.parse(response.getBody()).read("$.amount", BigDecimal.class);
+        }
+
+        @Test
+        @DisplayName("Reads should be served by the replica, except for a principal that has just written")
+        void givenReplica_whenReadingBeforeAndAfterWrite_thenShouldReadOwnWritesFromPrimary() {
+                assertThat(amountOf("Sarah1", "abc123", 99)).isEqualByComparingTo("1123.45");
+
+                ResponseEntity<Void> update = this.restTemplate
+                                .withBasicAuth("Sarah1", "abc123")
+                                .exchange("/cashcards/102", HttpMethod.PUT,
+                                                new HttpEntity<>(new CashCard(null, new BigDecimal("5.00"), null)),
+                                                Void.class);
+                assertThat(update.getStatusCode()).isEqualTo(HttpStatus.NO_CONTENT);
+
+                assertThat(amountOf("Sarah1", "abc123", 102)).isEqualByComparingTo("5.00");
+                assertThat(amountOf("Sarah1", "abc123", 99)).isEqualByComparingTo("123.45");
+                assertThat(amountOf("Pierre", "ghi789", 100)).isEqualByComparingTo("1001.00");
+        }
+
+        @Test
+        @DisplayName("Exports should be read from the replica")
+        void givenReplica_whenExport_thenShouldStreamReplicaRows() {
+                ResponseEntity<String> response = this.restTemplate
+                                .withBasicAuth("Pierre", "ghi789")
+                                .getForEntity("/cashcards/export", String.class);
+                assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+
+                String first = response.getBody().lines().findFirst().orElseThrow();
+                assertThat(JsonPath.parse(first).read("$.id", Long.class)).isEqualTo(100L);
+                assertThat(JsonPath.parse(first).read("$.amount", BigDecimal.class)).isEqualByComparingTo("1001.00");
+        }
+}
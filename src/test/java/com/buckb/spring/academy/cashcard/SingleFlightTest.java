@@ -0,0 +1,82 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    private final SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+
+    @Test
+    @DisplayName("Concurrent calls for the same key should share one load")
+    void givenCallInFlight_whenSameKeyRequested_thenShouldShareResult() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<Integer> leader = callers.submit(() -> this.singleFlight.execute("Sarah1:99", () -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                await(release);
+                return 42;
+            }));
+            assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+            List<Future<Integer>> followers = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                followers.add(callers.submit(() -> this.singleFlight.execute("Sarah1:99", () -> {
+                    loads.incrementAndGet();
+                    return -1;
+                })));
+            }
+            // Give the followers time to join the call in flight before it completes
+            Thread.sleep(100);
+            release.countDown();
+
+            assertThat(leader.get()).isEqualTo(42);
+            for (Future<Integer> follower : followers) {
+                assertThat(follower.get()).isEqualTo(42);
+            }
+        }
+        assertThat(loads).hasValue(1);
+        assertThat(this.singleFlight.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("A completed call should not be reused")
+    void givenCompletedCall_whenSameKeyRequested_thenShouldLoadAgain() {
+        assertThat(this.singleFlight.execute("Sarah1:99", () -> 1)).isEqualTo(1);
+        assertThat(this.singleFlight.execute("Sarah1:99", () -> 2)).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("A failed load should be rethrown and not remembered")
+    void givenFailingLoad_whenExecuting_thenShouldThrowAndAllowRetry() {
+        assertThatThrownBy(() -> this.singleFlight.execute("Sarah1:99", () -> {
+            throw new IllegalStateException("database down");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(this.singleFlight.execute("Sarah1:99", () -> 3)).isEqualTo(3);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.buckb.spring.academy.cashcard;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.http.HttpRequest;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Time from launching the extracted jar to the first successful authenticated request, for the fast-start
+ * launch line (AOT bean definitions, the CDS archive of the training run and the {@code faststart} profile)
+ * and for a plain {@code java -jar}. Every run is a new JVM, the modes alternate, and each mode is judged by
+ * its median. Run with {@code ./gradlew startupTest}, which builds the archive first. The fast-start median
+ * must stay below {@code startup.max-ratio} of the plain one measured on the same machine, and below
+ * {@code startup.budget} when that is set.
+ */
+@Tag("startup")
+class StartupTimeTest {
+
+    private static final Path DIRECTORY = Path.of(System.getProperty("startup.directory", "build/cds"));
+    private static final String JAR = System.getProperty("startup.jar");
+    private static final String JAVA = System.getProperty("startup.java", "java");
+    private static final int RUNS = Integer.getInteger("startup.runs", 3);
+    private static final double MAX_RATIO = Double.parseDouble(System.getProperty("startup.max-ratio", "0.8"));
+    private static final String BUDGET = System.getProperty("startup.budget");
+    private static final Duration TIMEOUT = Duration.ofSeconds(60);
+
+    // The profiles the AOT bean definitions were generated for
+    private static final String PROFILES = System.getProperty("startup.profiles", "faststart");
+    private static final List<String> FAST_START = List.of("-XX:SharedArchiveFile=application.jsa",
+            "-Dspring.aot.enabled=true", "-Dspring.profiles.active=" + PROFILES);
+    private static final List<String> PLAIN = List.of();
+
+    @Test
+    @DisplayName("The fast-start mode should answer its first request sooner than a plain launch")
+    void givenFastStartMode_whenLaunching_thenShouldAnswerFirstRequestSoonerThanPlainJar() throws Exception {
+        assertThat(JAR).as("startup.jar is set by ./gradlew startupTest").isNotNull();
+        assertThat(DIRECTORY.resolve("application.jsa")).exists();
+
+        List<Duration> plain = new ArrayList<>();
+        List<Duration> fastStart = new ArrayList<>();
+        for (int run = 0; run < RUNS; run++) {
+            plain.add(timeToFirstRequest("plain-" + run, PLAIN));
+            fastStart.add(timeToFirstRequest("faststart-" + run, FAST_START));
+        }
+        Duration plainMedian = median(plain);
+        Duration fastStartMedian = median(fastStart);
+
+        System.out.printf("plain      first request after %5d ms (median of %s)%n", plainMedian.toMillis(), plain);
+        System.out.printf("faststart  first request after %5d ms (median of %s)%n", fastStartMedian.toMillis(),
+                fastStart);
+        assertThat(fastStartMedian).isLessThanOrEqualTo(
+                Duration.ofNanos((long) (plainMedian.toNanos() * MAX_RATIO)));
+        if (BUDGET != null) {
+            assertThat(fastStartMedian).isLessThanOrEqualTo(Duration.parse(BUDGET));
+        }
+    }
+
+    private Duration timeToFirstRequest(String name, List<String> jvmOptions) throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        List<String> command = new ArrayList<>();
+        command.add(JAVA);
+        command.addAll(jvmOptions);
+        command.addAll(List.of("-jar", JAR, "--server.port=" + port));
+        File log = DIRECTORY.resolve("startup-" + name + ".log").toFile();
+        ProcessBuilder builder = new ProcessBuilder(command)
+                .directory(DIRECTORY.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(log);
+        builder.environment().putAll(Map.of("DB_USER", "sa", "DB_PASSWORD", "", "CONSOLE_PATH", "h2-console"));
+
+        LoadDriver driver = new LoadDriver(port, "Sarah1", "abc123");
+        // The packaged application has no test cards, an empty first page still needs the whole stack
+        HttpRequest request = driver.request("/cashcards?size=1").GET().build();
+        long start = System.nanoTime();
+        Process process = builder.start();
+        try {
+            while (true) {
+                Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+                assertThat(process.isAlive()).as("%s exited, see %s", name, log).isTrue();
+                assertThat(elapsed).as("%s did not answer, see %s", name, log).isLessThan(TIMEOUT);
+                try {
+                    if (driver.send(request).statusCode() == 200) {
+                        return Duration.ofNanos(System.nanoTime() - start);
+                    }
+                } catch (IOException e) {
+                    // Not listening yet
+                }
+                Thread.sleep(5);
+            }
+        } finally {
+            process.destroy();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private static Duration median(List<Duration> durations) {
+        return durations.stream().sorted().toList().get(durations.size() / 2);
+    }
+}
@@ -0,0 +1,54 @@
+package com.buckb.spring.academy.cashcard;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the platform-thread and virtual-thread execution modes under the same closed-loop load.
+ * Run with {@code ./gradlew loadTest}; tune with {@code -Dloadtest.requests} and {@code -Dloadtest.concurrency}.
+ */
+@Tag("load")
+class VirtualThreadLoadTest {
+
+    private static final int REQUESTS = Integer.getInteger("loadtest.requests", 20_000);
+    private static final int CONCURRENCY = Integer.getInteger("loadtest.concurrency", 400);
+
+    private static LoadDriver.Result measure(String label, String... profiles) throws InterruptedException {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(CashCardApplication.class)
+                .profiles(profiles)
+                .properties("server.port=0", "DB_USER=sa", "DB_PASSWORD=", "CONSOLE_PATH=h2-console",
+                        // A single client measures the server here, not the per-owner limit
+                        "cashcard.rate-limit.enabled=false")
+                .run()) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            LoadDriver driver = new LoadDriver(port, "Sarah1", "abc123");
+
+            // Warm up the JIT, the connection pool and the credential cache first
+            driver.run(label, CONCURRENCY, REQUESTS / 4, n -> driver.request("/cashcards/99").GET().build());
+            return driver.run(label, CONCURRENCY, REQUESTS, n -> driver.request(
+                    n % 2 == 0 ? "/cashcards/99" : "/cashcards?page=0&size=5").GET().build());
+        }
+    }
+
+    @Test
+    @DisplayName("Virtual threads should serve the same load as platform threads without errors")
+    void compareExecutionModes() throws InterruptedException {
+        LoadDriver.Result platform = measure("platform threads");
+        LoadDriver.Result virtual = measure("virtual threads", "virtual");
+
+        System.out.println(platform);
+        System.out.println(virtual);
+        System.out.printf("virtual/platform: throughput x%.2f, p99 x%.2f%n",
+                virtual.throughput() / platform.throughput(),
+                (double) virtual.p99().toNanos() / platform.p99().toNanos());
+
+        assertThat(platform.errors()).isZero();
+        assertThat(virtual.errors()).isZero();
+    }
+}
@@ -7,4 +7,6 @@ INSERT INTO CASH_CARD(ID, AMOUNT, OWNER) VALUES (104, 5.00, 'Pierre');
 INSERT INTO CASH_CARD(ID, AMOUNT, OWNER) VALUES (105, 9.20, 'Sarah1');
 INSERT INTO CASH_CARD(ID, AMOUNT, OWNER) VALUES (106, 75.00, 'Sarah1');
 INSERT INTO CASH_CARD(ID, AMOUNT, OWNER) VALUES (107, 22.00, 'Pierre');
-INSERT INTO CASH_CARD(ID, AMOUNT, OWNER) VALUES (108, 3.00, 'Alex');
\ No newline at end of file
+INSERT INTO CASH_CARD(ID, AMOUNT, OWNER) VALUES (108, 3.00, 'Alex');
+INSERT INTO CASH_CARD_SUMMARY(OWNER, CARD_COUNT, TOTAL_AMOUNT, MIN_AMOUNT, MAX_AMOUNT)
+    SELECT OWNER, COUNT(*), SUM(AMOUNT), MIN(AMOUNT), MAX(AMOUNT) FROM CASH_CARD GROUP BY OWNER;
\ No newline at end of file